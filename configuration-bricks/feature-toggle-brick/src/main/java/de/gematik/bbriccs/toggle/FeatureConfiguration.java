@@ -21,18 +21,41 @@
 package de.gematik.bbriccs.toggle;
 
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 public class FeatureConfiguration {
 
+  /** shared instance for the static helpers of {@link FeatureToggle} */
+  static final FeatureConfiguration INSTANCE = new FeatureConfiguration();
+
+  /**
+   * Toggles are resolved once from the system properties and the environment variables and then
+   * served from this snapshot. Use {@link #refresh()} after changing system properties at runtime
+   */
+  private static final Map<String, Optional<String>> RESOLVED_TOGGLES = new ConcurrentHashMap<>();
+
+  /**
+   * Discard all resolved toggles, thus the next lookups will read the current system properties and
+   * environment variables again
+   */
+  public static void refresh() {
+    RESOLVED_TOGGLES.clear();
+  }
+
+  private static Optional<String> resolveToggle(String key) {
+    return Optional.ofNullable(
+        System.getProperty(key, System.getenv(key.toUpperCase().replace(".", "_"))));
+  }
+
   public final boolean hasToggle(String key) {
     return getStringToggle(key).isPresent();
   }
 
   public final Optional<String> getStringToggle(String key) {
-    return Optional.ofNullable(
-        System.getProperty(key, System.getenv(key.toUpperCase().replace(".", "_"))));
+    return RESOLVED_TOGGLES.computeIfAbsent(key, FeatureConfiguration::resolveToggle);
   }
 
   public final String getStringToggle(String key, String defaultValue) {
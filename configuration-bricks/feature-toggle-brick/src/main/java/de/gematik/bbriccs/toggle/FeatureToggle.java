@@ -32,22 +32,31 @@ public interface FeatureToggle<T> {
   T getDefaultValue();
 
   static boolean hasToggle(String key) {
-    return new FeatureConfiguration().hasToggle(key);
+    return FeatureConfiguration.INSTANCE.hasToggle(key);
   }
 
   static Optional<String> getStringToggle(String key) {
-    return new FeatureConfiguration().getStringToggle(key);
+    return FeatureConfiguration.INSTANCE.getStringToggle(key);
   }
 
   static String getStringToggle(String key, String defaultValue) {
-    return new FeatureConfiguration().getStringToggle(key, defaultValue);
+    return FeatureConfiguration.INSTANCE.getStringToggle(key, defaultValue);
   }
 
   static boolean getBooleanToggle(String key, boolean defaultValue) {
-    return new FeatureConfiguration().getBooleanToggle(key, defaultValue);
+    return FeatureConfiguration.INSTANCE.getBooleanToggle(key, defaultValue);
   }
 
   static int getIntegerToggle(String key, int defaultValue) {
-    return new FeatureConfiguration().getIntegerToggle(key, defaultValue);
+    return FeatureConfiguration.INSTANCE.getIntegerToggle(key, defaultValue);
+  }
+
+  /**
+   * Re-read all toggles, e.g. after a system property was changed at runtime
+   *
+   * @see FeatureConfiguration#refresh()
+   */
+  static void refresh() {
+    FeatureConfiguration.refresh();
   }
 }
@@ -26,11 +26,41 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.function.Function;
 import lombok.val;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junitpioneer.jupiter.SetSystemProperty;
 
 class FeatureConfigurationTest {
 
+  @BeforeEach
+  void refreshToggles() {
+    // system properties are changed at runtime by the tests
+    FeatureToggle.refresh();
+  }
+
+  @AfterAll
+  static void resetToggles() {
+    FeatureToggle.refresh();
+  }
+
+  @Test
+  void shouldResolveTogglesOnceUntilRefreshed() {
+    val key = "hello.refresh";
+    assertFalse(FeatureToggle.hasToggle(key));
+    try {
+      System.setProperty(key, "changed at runtime");
+      assertFalse(FeatureToggle.hasToggle(key));
+
+      FeatureToggle.refresh();
+      assertEquals("changed at runtime", FeatureToggle.getStringToggle(key, "Default Value"));
+    } finally {
+      System.clearProperty(key);
+      FeatureToggle.refresh();
+    }
+    assertFalse(FeatureToggle.hasToggle(key));
+  }
+
   @Test
   void shouldNotHaveUndefinedToggles() {
     assertFalse(FeatureToggle.hasToggle("hello.world"));
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.codec;
+
+import ca.uhn.fhir.parser.IParser;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Formatting options for a single encode call of the {@link FhirCodec}. The options are applied to
+ * a parser which is exclusively used for this call and thus never leak into concurrent encodings
+ */
+@Getter
+@Builder
+public class EncodeOptions {
+
+  private boolean prettyPrint;
+  private boolean suppressNarratives;
+  private boolean omitResourceId;
+
+  public static EncodeOptions compact() {
+    return EncodeOptions.builder().build();
+  }
+
+  public static EncodeOptions pretty() {
+    return EncodeOptions.builder().prettyPrint(true).build();
+  }
+
+  public static EncodeOptions withPrettyPrint(boolean prettyPrint) {
+    return prettyPrint ? pretty() : compact();
+  }
+
+  IParser applyTo(IParser parser) {
+    return parser
+        .setPrettyPrint(this.prettyPrint)
+        .setSuppressNarratives(this.suppressNarratives)
+        .setOmitResourceId(this.omitResourceId);
+  }
+}
@@ -22,17 +22,34 @@ package de.gematik.bbriccs.fhir.codec;
 
 import static java.text.MessageFormat.format;
 
+import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.IParserErrorHandler;
 import ca.uhn.fhir.parser.LenientErrorHandler;
+import ca.uhn.fhir.parser.StrictErrorHandler;
+import ca.uhn.fhir.validation.ValidationResult;
 import de.gematik.bbriccs.fhir.EncodingType;
 import de.gematik.bbriccs.fhir.codec.exceptions.FhirCodecException;
 import de.gematik.bbriccs.fhir.coding.WithStructureDefinition;
 import de.gematik.bbriccs.fhir.coding.version.ProfileVersion;
 import de.gematik.bbriccs.fhir.validation.*;
 import de.gematik.refv.SupportedValidationModule;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import lombok.experimental.Delegate;
 import lombok.extern.slf4j.Slf4j;
@@ -44,15 +61,55 @@ import org.hl7.fhir.r4.model.Resource;
 @Slf4j
 public class FhirCodec {
 
+  /** UTF-8 encoded content might start with a byte order mark which HAPI does not expect */
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+  private static final ProfileExtractor PROFILE_EXTRACTOR = new ProfileExtractor();
+
   private final FhirContext ctx;
-  private IParser xmlParser;
-  private IParser jsonParser;
+
+  /**
+   * The error handler of this codec is installed on each of its parsers and not on the {@link
+   * FhirContext} which might be shared with other codecs and validators. If null, the parsers use
+   * the error handler of the {@link FhirContext}
+   */
+  @Nullable private final IParserErrorHandler errorHandler;
+
+  /**
+   * HAPI parsers are not thread-safe, while the {@link FhirContext} is. To allow concurrent
+   * decoding without serializing all calls, each thread gets its own lazily created parsers.
+   * Encoding does not use these parsers because their configuration differs per call
+   */
+  private final ThreadLocal<IParser> xmlParser;
+
+  private final ThreadLocal<IParser> jsonParser;
 
   @Delegate private final ValidatorFhir validator;
 
   protected FhirCodec(FhirContext ctx, ValidatorFhir validator) {
+    this(ctx, validator, null);
+  }
+
+  protected FhirCodec(
+      FhirContext ctx, ValidatorFhir validator, @Nullable IParserErrorHandler errorHandler) {
     this.ctx = ctx;
     this.validator = validator;
+    this.errorHandler = errorHandler;
+    this.xmlParser = ThreadLocal.withInitial(() -> this.newParser(ctx::newXmlParser));
+    this.jsonParser = ThreadLocal.withInitial(() -> this.newParser(ctx::newJsonParser));
+  }
+
+  private IParser newParser(Supplier<IParser> parserSupplier) {
+    val parser = parserSupplier.get();
+    if (this.errorHandler != null) {
+      parser.setParserErrorHandler(this.errorHandler);
+    }
+    return parser;
+  }
+
+  private IParser newParser(EncodingType encoding) {
+    return encoding.choose(
+        () -> this.newParser(ctx::newXmlParser), () -> this.newParser(ctx::newJsonParser));
   }
 
   public String encode(IBaseResource resource, EncodingType encoding) {
@@ -60,21 +117,62 @@ public class FhirCodec {
   }
 
   public String encode(IBaseResource resource, EncodingType encoding, boolean prettyPrint) {
+    return this.encode(resource, encoding, EncodeOptions.withPrettyPrint(prettyPrint));
+  }
+
+  /**
+   * Encode the given resource with the given formatting options. Each call uses its own parser
+   * configured from the options, thus calls with different options can safely run concurrently
+   *
+   * @param resource to be encoded
+   * @param encoding the target encoding
+   * @param options formatting options for this call
+   * @return the encoded resource
+   */
+  public String encode(IBaseResource resource, EncodingType encoding, EncodeOptions options) {
     if (resource instanceof EmptyResource) {
       return "";
     }
-    val parser = encoding.chooseAppropriateParser(this::getXmlParser, this::getJsonParser);
-    parser.setPrettyPrint(prettyPrint);
+    val parser = options.applyTo(this.newParser(encoding));
     return parser.encodeResourceToString(resource);
   }
 
+  public void encodeToStream(IBaseResource resource, EncodingType encoding, OutputStream output) {
+    this.encodeToStream(resource, encoding, EncodeOptions.compact(), output);
+  }
+
+  /**
+   * Encode the given resource as UTF-8 directly to the given {@link OutputStream} without building
+   * an intermediate String. The stream is flushed but not closed
+   *
+   * @param resource to be encoded
+   * @param encoding the target encoding
+   * @param options formatting options for this call
+   * @param output the stream to write the encoded resource to
+   */
+  public void encodeToStream(
+      IBaseResource resource, EncodingType encoding, EncodeOptions options, OutputStream output) {
+    if (resource instanceof EmptyResource) {
+      return;
+    }
+    val parser = options.applyTo(this.newParser(encoding));
+    val writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    try {
+      parser.encodeResourceToWriter(resource, writer);
+      writer.flush();
+    } catch (IOException ioe) {
+      throw new FhirCodecException(
+          format("Error while encoding {0} to stream", resource.fhirType()), ioe);
+    }
+  }
+
   public <T extends Resource> T decode(Class<T> expectedClass, String content) {
     val encoding = EncodingType.guessFromContent(content);
     return this.decode(expectedClass, content, encoding);
   }
 
   @SuppressWarnings("unchecked")
-  public synchronized <T extends Resource> T decode(
+  public <T extends Resource> T decode(
       Class<T> expectedClass, String content, EncodingType encoding) {
     if (StringUtils.isBlank(content)) {
       // if the content is empty, there is no need to bother HAPI and just simply return an
@@ -113,38 +211,209 @@ public class FhirCodec {
     return this.decode(null, content, encoding);
   }
 
-  private IParser getXmlParser() {
-    if (this.xmlParser == null) {
-      this.xmlParser = ctx.newXmlParser();
+  public ValidatedResource decodeAndValidate(
+      @Nullable Class<? extends Resource> expectedClass, String content) {
+    val encoding = EncodingType.guessFromContent(content);
+    return this.decodeAndValidate(expectedClass, content, encoding);
+  }
+
+  /**
+   * Validate and decode the given content in a single operation. This codec parses the content
+   * exactly once, while the validator reads the raw content into its own element model.
+   *
+   * <p>To avoid decoding the content a second time if it does not match the expected type (e.g.
+   * because an OperationOutcome was received instead), the root resource type is peeked beforehand.
+   * On a mismatch HAPI will decide on the concrete type instead
+   *
+   * @param expectedClass the expected type of the resource or null to let HAPI decide
+   * @param content to be validated and decoded
+   * @param encoding type of content
+   * @return the decoded resource together with its {@link ValidationResult}
+   */
+  public ValidatedResource decodeAndValidate(
+      @Nullable Class<? extends Resource> expectedClass, String content, EncodingType encoding) {
+    if (StringUtils.isBlank(content)) {
+      // empty content is always valid and does not need to bother HAPI
+      val vr = new ValidationResult(this.validator.getContext(), List.of());
+      return new ValidatedResource(new EmptyResource(), vr);
     }
-    return this.xmlParser;
+
+    val vr = this.validator.validate(content);
+    val expectation = this.isOfResourceType(expectedClass, content) ? expectedClass : null;
+    val resource = this.decode(expectation, content, encoding);
+    return new ValidatedResource(resource, vr);
   }
 
-  private IParser getJsonParser() {
-    if (this.jsonParser == null) {
-      this.jsonParser = ctx.newJsonParser();
+  private boolean isOfResourceType(
+      @Nullable Class<? extends Resource> expectedClass, String content) {
+    if (expectedClass == null) {
+      return false;
+    }
+
+    try {
+      val expectedType = this.ctx.getResourceType(expectedClass);
+      return PROFILE_EXTRACTOR
+          .extractResourceType(content)
+          .filter(expectedType::equals)
+          .isPresent();
+    } catch (ConfigurationException | DataFormatException | IllegalArgumentException e) {
+      // custom resources like the EmptyResource are not known to HAPI
+      log.trace("{} is not a known resource type", expectedClass.getSimpleName());
+      return false;
     }
-    return this.jsonParser;
+  }
+
+  /**
+   * Decode UTF-8 encoded content. The streaming variants of decode carry distinct names to keep
+   * calls like {@code decode(Patient.class, null)} unambiguous for the String-based variants
+   *
+   * @param expectedClass the expected type of the resource or null to let HAPI decide
+   * @param content UTF-8 encoded content, optionally starting with a byte order mark
+   * @param <T> the expected type of the resource
+   * @return decoded FHIR-Resource or an {@link EmptyResource} if the content is blank
+   */
+  public <T extends Resource> T decodeFromBytes(Class<T> expectedClass, byte[] content) {
+    return this.decodeFromStream(expectedClass, toStream(content));
+  }
+
+  public <T extends Resource> T decodeFromBytes(
+      Class<T> expectedClass, byte[] content, EncodingType encoding) {
+    return this.decodeFromStream(expectedClass, toStream(content), encoding);
+  }
+
+  public <T extends Resource> T decodeFromStream(Class<T> expectedClass, InputStream content) {
+    return this.decodeFromReader(
+        expectedClass, new InputStreamReader(content, StandardCharsets.UTF_8));
+  }
+
+  public <T extends Resource> T decodeFromStream(
+      Class<T> expectedClass, InputStream content, EncodingType encoding) {
+    return this.decodeFromReader(
+        expectedClass, new InputStreamReader(content, StandardCharsets.UTF_8), encoding);
+  }
+
+  /**
+   * Decode the content directly from the given {@link Reader} without building an intermediate
+   * String. The encoding is guessed from the first non-whitespace character of the content
+   *
+   * @param expectedClass the expected type of the resource or null to let HAPI decide
+   * @param content to be decoded to a FHIR-Resource
+   * @param <T> the expected type of the resource
+   * @return decoded FHIR-Resource or an {@link EmptyResource} if the content is blank
+   */
+  public <T extends Resource> T decodeFromReader(Class<T> expectedClass, Reader content) {
+    val reader = new PushbackReader(content);
+    val firstChar = peekFirstCharacter(reader);
+    val encoding = firstChar == -1 || firstChar == '<' ? EncodingType.XML : EncodingType.JSON;
+    return this.decode(expectedClass, reader, encoding, firstChar);
+  }
+
+  public <T extends Resource> T decodeFromReader(
+      Class<T> expectedClass, Reader content, EncodingType encoding) {
+    val reader = new PushbackReader(content);
+    return this.decode(expectedClass, reader, encoding, peekFirstCharacter(reader));
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Resource> T decode(
+      Class<T> expectedClass, PushbackReader content, EncodingType encoding, int firstChar) {
+    if (firstChar == -1) {
+      // blank content is handled the same way as blank strings
+      return (T) new EmptyResource();
+    }
+    val parser = encoding.chooseAppropriateParser(this::getXmlParser, this::getJsonParser);
+
+    try {
+      return parser.parseResource(expectedClass, content);
+    } catch (Throwable t) {
+      log.error("Unable to decode streamed content as {}-FHIR", encoding.name());
+      throw new FhirCodecException(
+          format("Error while decoding streamed content as {0}", expectedClass), t);
+    }
+  }
+
+  /**
+   * Skip a leading byte order mark and all leading whitespaces and push the first relevant
+   * character back to the reader
+   *
+   * @param reader to peek into
+   * @return the first non-whitespace character or -1 if the content is blank
+   */
+  private static int peekFirstCharacter(PushbackReader reader) {
+    try {
+      int c;
+      do {
+        c = reader.read();
+      } while (c != -1 && (c == BYTE_ORDER_MARK || Character.isWhitespace(c)));
+
+      if (c != -1) {
+        reader.unread(c);
+      }
+      return c;
+    } catch (IOException ioe) {
+      throw new FhirCodecException("Error while reading content for decoding", ioe);
+    }
+  }
+
+  private static InputStream toStream(@Nullable byte[] content) {
+    return new ByteArrayInputStream(Objects.requireNonNullElse(content, new byte[0]));
+  }
+
+  private IParser getXmlParser() {
+    return this.xmlParser.get();
+  }
+
+  private IParser getJsonParser() {
+    return this.jsonParser.get();
   }
 
   public static FhirCodecBuilder forR4() {
     return new FhirCodecBuilder(FhirContext.forR4());
   }
 
+  /**
+   * Create a builder which shares the given {@link FhirContext} with the codec and with every
+   * validator created by the builder. Creating a {@link FhirContext} is expensive, while a
+   * configured one is thread-safe and can be shared by many codecs and validators.
+   *
+   * <p><b>NOTE:</b> the parser error handler is configured per codec and does not leak into the
+   * shared context. However, type hints are registered on the context and thus visible to all
+   * codecs sharing it: build all codecs before using the context concurrently. Registering a
+   * conflicting type hint for an already mapped profile is rejected
+   *
+   * @param ctx the {@link FhirContext} for FHIR R4 to be shared
+   * @return the {@link FhirCodecBuilder}
+   */
+  public static FhirCodecBuilder forR4(FhirContext ctx) {
+    val fhirVersion = ctx.getVersion().getVersion();
+    if (fhirVersion != FhirVersionEnum.R4) {
+      throw new IllegalArgumentException(
+          format("Expected a FhirContext for R4 but was {0}", fhirVersion));
+    }
+    return new FhirCodecBuilder(ctx);
+  }
+
   public static class FhirCodecBuilder {
 
     private final FhirContext ctx;
     private final List<ResourceTypeHint<?, ?>> typeHints;
+    @Nullable private IParserErrorHandler errorHandler;
 
     private FhirCodecBuilder(FhirContext ctx) {
       this.ctx = ctx;
       this.typeHints = new LinkedList<>();
     }
 
+    /**
+     * Disable all parser errors of the codec. The error handler is installed on the parsers of the
+     * codec only, other codecs sharing the same {@link FhirContext} are not affected
+     *
+     * @return the builder
+     */
     public FhirCodecBuilder disableErrors() {
-      val errorHandler = new LenientErrorHandler();
-      errorHandler.disableAllErrors();
-      ctx.setParserErrorHandler(errorHandler);
+      val lenientErrorHandler = new LenientErrorHandler();
+      lenientErrorHandler.disableAllErrors();
+      this.errorHandler = lenientErrorHandler;
 
       return this;
     }
@@ -184,6 +453,10 @@ public class FhirCodec {
 
     public FhirCodec andBbriccsValidator() {
       val validator = ValidatorFhirFactory.createValidator(this.ctx);
+      // the profiled validation expects strict parsing unless errors were disabled explicitly
+      if (this.errorHandler == null) {
+        this.errorHandler = new StrictErrorHandler();
+      }
       return andCustomValidator(validator);
     }
 
@@ -194,7 +467,7 @@ public class FhirCodec {
 
     public FhirCodec andCustomValidator(ValidatorFhir validator) {
       this.typeHints.forEach(th -> th.register(this.ctx));
-      return new FhirCodec(this.ctx, validator);
+      return new FhirCodec(this.ctx, validator, this.errorHandler);
     }
   }
 }
@@ -20,6 +20,8 @@
 
 package de.gematik.bbriccs.fhir.codec;
 
+import static java.text.MessageFormat.format;
+
 import ca.uhn.fhir.context.FhirContext;
 import de.gematik.bbriccs.fhir.coding.WithStructureDefinition;
 import de.gematik.bbriccs.fhir.coding.version.ProfileVersion;
@@ -28,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.val;
 import org.hl7.fhir.r4.model.Resource;
 
 public class ResourceTypeHint<T extends ProfileVersion, R extends Resource> {
@@ -43,12 +46,30 @@ public class ResourceTypeHint<T extends ProfileVersion, R extends Resource> {
     this.mappingClass = mappingClass;
   }
 
+  /**
+   * Register the mapping on the given {@link FhirContext}. The mapping is visible to all parsers
+   * created from this context, thus registering the same mapping again is allowed while mapping an
+   * already registered profile to a different class is rejected
+   *
+   * @param ctx the {@link FhirContext} to register the mapping on
+   * @throws IllegalArgumentException if a profile is already mapped to a different class
+   */
   public void register(FhirContext ctx) {
     // register to the default StructureDefinition without any version
-    ctx.setDefaultTypeForProfile(definition.getCanonicalUrl(), mappingClass);
+    this.register(ctx, definition.getCanonicalUrl());
     // register the StructureDefinition for any of the given versions
-    this.versions.forEach(
-        v -> ctx.setDefaultTypeForProfile(definition.getVersionedUrl(v), mappingClass));
+    this.versions.forEach(v -> this.register(ctx, definition.getVersionedUrl(v)));
+  }
+
+  private void register(FhirContext ctx, String profile) {
+    val registered = ctx.getDefaultTypeForProfile(profile);
+    if (registered != null && !registered.equals(mappingClass)) {
+      throw new IllegalArgumentException(
+          format(
+              "Profile {0} is already mapped to {1} and cannot be mapped to {2}",
+              profile, registered.getSimpleName(), mappingClass.getSimpleName()));
+    }
+    ctx.setDefaultTypeForProfile(profile, mappingClass);
   }
 
   public static <T extends ProfileVersion> Builder<T> forStructure(
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.codec;
+
+import ca.uhn.fhir.validation.ValidationResult;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * The outcome of {@link FhirCodec#decodeAndValidate(Class, String)} which holds the decoded
+ * resource and the {@link ValidationResult} of the very same content
+ */
+@Getter
+@RequiredArgsConstructor
+public class ValidatedResource {
+
+  /**
+   * The decoded resource which is either of the expected type or of the type HAPI decided on if the
+   * content did not match the expectation (e.g. an OperationOutcome)
+   */
+  private final Resource resource;
+
+  private final ValidationResult validationResult;
+
+  public boolean isValid() {
+    return this.validationResult.isSuccessful();
+  }
+
+  public boolean isOfType(Class<? extends Resource> type) {
+    return type.isInstance(this.resource);
+  }
+}
@@ -20,22 +20,32 @@
 
 package de.gematik.bbriccs.fhir.codec;
 
+import static java.text.MessageFormat.format;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.*;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
 import de.gematik.bbriccs.fhir.EncodingType;
 import de.gematik.bbriccs.fhir.codec.exceptions.FhirCodecException;
 import de.gematik.bbriccs.fhir.codec.utils.FhirTest;
+import de.gematik.bbriccs.fhir.codec.utils.FhirTestResourceUtil;
 import de.gematik.bbriccs.fhir.coding.WithStructureDefinition;
 import de.gematik.bbriccs.fhir.coding.version.GenericProfileVersion;
 import de.gematik.bbriccs.fhir.coding.version.ProfileVersion;
 import de.gematik.bbriccs.fhir.validation.DummyValidator;
+import de.gematik.bbriccs.fhir.validation.ProfiledValidator;
 import de.gematik.bbriccs.fhir.validation.ValidatorFhirFactory;
+import de.gematik.bbriccs.utils.ConcurrencyUtil;
 import de.gematik.bbriccs.utils.ResourceLoader;
 import de.gematik.refv.SupportedValidationModule;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Stream;
 import lombok.Getter;
@@ -49,6 +59,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.NullSource;
+import org.mockito.stubbing.Answer;
 
 class FhirCodecTest extends FhirTest {
 
@@ -271,6 +282,265 @@ class FhirCodecTest extends FhirTest {
     assertEquals(TestKbvPatient.class, bundle.getPatient().getClass());
   }
 
+  @Test
+  void shouldShareInjectedContext() {
+    val ctx = FhirContext.forR4();
+    val nonProfiled = FhirCodec.forR4(ctx).andNonProfiledValidator();
+    val dummy = FhirCodec.forR4(ctx).andDummyValidator();
+    assertSame(ctx, nonProfiled.getContext());
+    assertSame(ctx, dummy.getContext());
+  }
+
+  @Test
+  void shouldRejectNonR4Context() {
+    val ctx = FhirContext.forR5();
+    assertThrows(IllegalArgumentException.class, () -> FhirCodec.forR4(ctx));
+  }
+
+  @Test
+  void shouldDecodeAndValidateConcurrentlyWithSharedContext() {
+    val ctx = FhirContext.forR4();
+    val codecs =
+        List.of(
+            FhirCodec.forR4(ctx).andNonProfiledValidator(),
+            FhirCodec.forR4(ctx).andNonProfiledValidator());
+    val contents =
+        ResourceLoader.getResourceFilesInDirectory("examples/fhir/valid/erp/kbv/1.1.0/bundle")
+            .stream()
+            .map(ResourceLoader::readString)
+            .toList();
+
+    val expected =
+        contents.stream().map(c -> codecs.get(0).decodeAndValidate(Bundle.class, c)).toList();
+
+    val results =
+        ConcurrencyUtil.runConcurrently(
+            8,
+            64,
+            i ->
+                codecs
+                    .get(i % codecs.size())
+                    .decodeAndValidate(Bundle.class, contents.get(i % contents.size())));
+
+    for (var i = 0; i < results.size(); i++) {
+      val expectedResult = expected.get(i % contents.size());
+      val validated = results.get(i);
+      assertEquals(expectedResult.isValid(), validated.isValid());
+      assertEquals(
+          expectedResult.getValidationResult().getMessages().size(),
+          validated.getValidationResult().getMessages().size());
+      assertEquals(
+          expectedResult.getResource().getIdElement().getIdPart(),
+          validated.getResource().getIdElement().getIdPart());
+    }
+  }
+
+  @Test
+  void shouldDecodeConcurrently() {
+    val contents =
+        ResourceLoader.getResourceFilesInDirectory("examples/fhir/valid/erp/kbv/1.1.0/bundle")
+            .stream()
+            .map(ResourceLoader::readString)
+            .toList();
+    val expectedIds =
+        contents.stream().map(c -> fhirCodec.decode(Bundle.class, c).getIdPart()).toList();
+
+    val results =
+        ConcurrencyUtil.runConcurrently(
+            8,
+            200,
+            i -> fhirCodec.decode(Bundle.class, contents.get(i % contents.size())).getIdPart());
+
+    for (var i = 0; i < results.size(); i++) {
+      assertEquals(expectedIds.get(i % contents.size()), results.get(i));
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldEncodeConcurrentlyWithMixedOptions(EncodingType encodingType) {
+    val content =
+        ResourceLoader.readFileFromResource("examples/fhir/valid/hl7/patient/patient_01.xml");
+    val patient = fhirCodec.decode(Patient.class, content);
+    val expectedPretty = fhirCodec.encode(patient, encodingType, EncodeOptions.pretty());
+    val expectedCompact = fhirCodec.encode(patient, encodingType, EncodeOptions.compact());
+    assertNotEquals(expectedPretty, expectedCompact);
+
+    val results =
+        ConcurrencyUtil.runConcurrently(
+            8,
+            200,
+            i ->
+                fhirCodec.encode(patient, encodingType, EncodeOptions.withPrettyPrint(i % 2 == 0)));
+
+    for (var i = 0; i < results.size(); i++) {
+      val expected = i % 2 == 0 ? expectedPretty : expectedCompact;
+      assertEquals(expected, results.get(i), format("Encoding {0} has wrong format", i));
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldEncodeWithOptions(EncodingType encodingType) {
+    val patient = new Patient();
+    patient.setId("123");
+    patient.getText().setDivAsString("<div>narrative</div>");
+
+    val options = EncodeOptions.builder().suppressNarratives(true).omitResourceId(true).build();
+    val content = fhirCodec.encode(patient, encodingType, options);
+    assertFalse(content.contains("narrative"));
+    assertFalse(content.contains("123"));
+
+    val defaultContent = fhirCodec.encode(patient, encodingType, EncodeOptions.compact());
+    assertTrue(defaultContent.contains("narrative"));
+    assertTrue(defaultContent.contains("123"));
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldDecodeFromBytesStreamsAndReaders(EncodingType encodingType) {
+    val content =
+        ResourceLoader.readFileFromResource(
+            "examples/fhir/valid/erp/kbv/1.1.0/bundle/1f339db0-9e55-4946-9dfa-f1b30953be9b.xml");
+    val bundle = fhirCodec.decode(Bundle.class, content);
+    val encoded = fhirCodec.encode(bundle, encodingType);
+    val bytes = encoded.getBytes(StandardCharsets.UTF_8);
+
+    val fromBytes = assertDoesNotThrow(() -> fhirCodec.decodeFromBytes(Bundle.class, bytes));
+    val fromBytesTyped =
+        assertDoesNotThrow(() -> fhirCodec.decodeFromBytes(Bundle.class, bytes, encodingType));
+    val fromStream =
+        assertDoesNotThrow(
+            () -> fhirCodec.decodeFromStream(Bundle.class, new ByteArrayInputStream(bytes)));
+    val fromReader =
+        assertDoesNotThrow(
+            () -> fhirCodec.decodeFromReader(Bundle.class, new StringReader(encoded)));
+
+    List.of(fromBytes, fromBytesTyped, fromStream, fromReader)
+        .forEach(decoded -> assertTrue(bundle.equalsDeep(decoded)));
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldDecodeBytesWithByteOrderMark(EncodingType encodingType) {
+    val content =
+        ResourceLoader.readFileFromResource("examples/fhir/valid/hl7/patient/patient_01.xml");
+    val patient = fhirCodec.decode(Patient.class, content);
+    val encoded = fhirCodec.encode(patient, encodingType);
+    val bytes = ("\uFEFF" + encoded).getBytes(StandardCharsets.UTF_8);
+
+    val decoded = assertDoesNotThrow(() -> fhirCodec.decodeFromBytes(Patient.class, bytes));
+    assertEquals(encoded, fhirCodec.encode(decoded, encodingType));
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldEncodeToOutputStream(EncodingType encodingType) {
+    val content =
+        ResourceLoader.readFileFromResource("examples/fhir/valid/hl7/patient/patient_01.xml");
+    val patient = fhirCodec.decode(Patient.class, content);
+
+    val output = new ByteArrayOutputStream();
+    fhirCodec.encodeToStream(patient, encodingType, output);
+    assertEquals(fhirCodec.encode(patient, encodingType), output.toString(StandardCharsets.UTF_8));
+
+    val prettyOutput = new ByteArrayOutputStream();
+    fhirCodec.encodeToStream(patient, encodingType, EncodeOptions.pretty(), prettyOutput);
+    assertEquals(
+        fhirCodec.encode(patient, encodingType, true),
+        prettyOutput.toString(StandardCharsets.UTF_8));
+  }
+
+  @ParameterizedTest
+  @MethodSource("shouldDecodeEmptyResource")
+  @NullSource
+  void shouldDecodeEmptyResourceFromBytes(String content) {
+    val bytes = content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+    val resource = assertDoesNotThrow(() -> fhirCodec.decodeFromBytes(EmptyResource.class, bytes));
+    assertEquals(EmptyResource.class, resource.getClass());
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldNotEncodeEmptyResourceToOutputStream(EncodingType encodingType) {
+    val output = new ByteArrayOutputStream();
+    fhirCodec.encodeToStream(new EmptyResource(), encodingType, output);
+    assertEquals(0, output.size());
+  }
+
+  @Test
+  void shouldThrowOnInvalidStreamedContent() {
+    val bytes = "<Patient><invalid".getBytes(StandardCharsets.UTF_8);
+    assertThrows(FhirCodecException.class, () -> fhirCodec.decodeFromBytes(Patient.class, bytes));
+  }
+
+  @ParameterizedTest
+  @MethodSource("shouldDecodeExamplesWithMultipleTypeHints")
+  void shouldParseOnceOnDecodeAndValidate(File file) {
+    val content = ResourceLoader.readString(file);
+
+    val parsers = new LinkedList<IParser>();
+    val ctx = spyOnParsers(parsers);
+
+    val validator = new ProfiledValidator(ctx, "test", List.of(), null);
+    val codec = new FhirCodec(ctx, validator);
+    val decoded = codec.decodeAndValidate(Bundle.class, content);
+    assertTrue(decoded.isOfType(Bundle.class));
+    assertNotNull(decoded.getValidationResult());
+
+    // the validator reads the content into its own element model without any of these parsers
+    assertEquals(1, parsers.size());
+    verify(parsers.get(0), times(1)).parseResource(eq(Bundle.class), anyString());
+  }
+
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldParseUnexpectedResourceOnce(EncodingType encodingType) {
+    val content = fhirCodec.encode(FhirTestResourceUtil.createOperationOutcome(), encodingType);
+
+    val parsers = new LinkedList<IParser>();
+    val ctx = spyOnParsers(parsers);
+
+    val codec = new FhirCodec(ctx, new DummyValidator(ctx));
+    val decoded = codec.decodeAndValidate(Bundle.class, content);
+    assertTrue(decoded.isOfType(OperationOutcome.class));
+    assertEquals(1, parsers.size());
+    verify(parsers.get(0), times(1)).parseResource((Class<Resource>) null, content);
+  }
+
+  /** Create a {@link FhirContext} which collects spies of all parsers it creates */
+  private static FhirContext spyOnParsers(List<IParser> parsers) {
+    val ctx = spy(FhirContext.forR4());
+    Answer<IParser> spyParser =
+        invocation -> {
+          val parser = spy((IParser) invocation.callRealMethod());
+          parsers.add(parser);
+          return parser;
+        };
+    doAnswer(spyParser).when(ctx).newXmlParser();
+    doAnswer(spyParser).when(ctx).newJsonParser();
+    return ctx;
+  }
+
+  @Test
+  void shouldDecodeAndValidateUnexpectedResource() {
+    val content = fhirCodec.encode(FhirTestResourceUtil.createOperationOutcome(), EncodingType.XML);
+
+    val decoded = fhirCodec.decodeAndValidate(Bundle.class, content);
+    assertTrue(decoded.isOfType(OperationOutcome.class));
+    assertFalse(decoded.isOfType(Bundle.class));
+    assertNotNull(decoded.getValidationResult());
+  }
+
+  @ParameterizedTest
+  @MethodSource("shouldDecodeEmptyResource")
+  @NullSource
+  void shouldDecodeAndValidateEmptyContent(String content) {
+    val decoded = fhirCodec.decodeAndValidate(Bundle.class, content);
+    assertTrue(decoded.isValid());
+    assertTrue(decoded.isOfType(EmptyResource.class));
+  }
+
   @ParameterizedTest
   @MethodSource
   @NullSource
@@ -328,6 +598,60 @@ class FhirCodecTest extends FhirTest {
     assertDoesNotThrow(() -> fc.encode(t, EncodingType.XML));
   }
 
+  @ParameterizedTest
+  @EnumSource(EncodingType.class)
+  void shouldNotShareErrorHandlerOfCodecsWithSharedContext(EncodingType encoding) {
+    val ctx = FhirContext.forR4();
+
+    val codecBefore = FhirCodec.forR4(ctx).andDummyValidator();
+    val lenientCodec = FhirCodec.forR4(ctx).disableErrors().andDummyValidator();
+    val codecAfter = FhirCodec.forR4(ctx).andDummyValidator();
+
+    val t = new Task();
+    val e = t.addExtension();
+    e.setValue(new StringType("Bricks"));
+    e.addExtension("https://gematik.de/fhir", new StringType("Bricks"));
+
+    assertDoesNotThrow(() -> lenientCodec.encode(t, encoding));
+    assertThrows(DataFormatException.class, () -> codecBefore.encode(t, encoding));
+    assertThrows(DataFormatException.class, () -> codecAfter.encode(t, encoding));
+  }
+
+  @Test
+  void shouldNotChangeErrorHandlerOfSharedContextByValidators() {
+    val ctx = FhirContext.forR4();
+    val lenientCodec = FhirCodec.forR4(ctx).disableErrors().andDummyValidator();
+    new ProfiledValidator(ctx, "test", List.of(), null);
+
+    val t = new Task();
+    val e = t.addExtension();
+    e.setValue(new StringType("Bricks"));
+    e.addExtension("https://gematik.de/fhir", new StringType("Bricks"));
+
+    assertDoesNotThrow(() -> lenientCodec.encode(t, EncodingType.XML));
+  }
+
+  @Test
+  void shouldRejectConflictingTypeHintsOnSharedContext() {
+    val ctx = FhirContext.forR4();
+    val definition = TestKbvStructDef.KBV_PATIENT;
+
+    FhirCodec.forR4(ctx)
+        .withTypeHint(ResourceTypeHint.forStructure(definition).mappingTo(TestKbvPatient.class))
+        .andDummyValidator();
+
+    val sameHint =
+        FhirCodec.forR4(ctx)
+            .withTypeHint(
+                ResourceTypeHint.forStructure(definition).mappingTo(TestKbvPatient.class));
+    assertDoesNotThrow(sameHint::andDummyValidator);
+
+    val conflictingHint =
+        FhirCodec.forR4(ctx)
+            .withTypeHint(ResourceTypeHint.forStructure(definition).mappingTo(Patient.class));
+    assertThrows(IllegalArgumentException.class, conflictingHint::andDummyValidator);
+  }
+
   public static class TestKbvPatient extends Patient {}
 
   public static class TestKbvBundle extends Bundle {
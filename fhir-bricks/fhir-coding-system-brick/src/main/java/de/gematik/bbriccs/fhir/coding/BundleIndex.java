@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.coding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.val;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.ResourceType;
+
+/**
+ * A read-only view on the entries of a {@link Bundle} which indexes the entry resources by their
+ * resource type, by the canonical URLs of their profiles and by the full URL of the entry.
+ *
+ * <p>The index is built in a single pass over the entries. It is useful when many resources are
+ * looked up in the same bundle, because each lookup then avoids a scan over all entries.
+ *
+ * <pre>{@code
+ * BundleIndex index = BundleIndex.of(bundle);
+ * Optional<Patient> patient = index.findFirstResource(KbvItaForStructDef.PATIENT)
+ *        .map(Patient.class::cast);
+ * List<Coverage> coverages = index.getResources(ResourceType.Coverage, Coverage.class);
+ * }</pre>
+ *
+ * <b>Note:</b> the view is a snapshot. Later modifications of the bundle are not reflected
+ */
+public final class BundleIndex {
+
+  private final List<Resource> resources;
+  private final Map<ResourceType, List<Resource>> byResourceType;
+
+  /** resources by the canonical URLs of their profiles without any version */
+  private final Map<String, List<Resource>> byProfile;
+
+  private final Map<String, Resource> byFullUrl;
+
+  private BundleIndex(List<BundleEntryComponent> entries) {
+    val allResources = new ArrayList<Resource>(entries.size());
+    val types = new HashMap<ResourceType, List<Resource>>();
+    val profiles = new HashMap<String, List<Resource>>();
+    val fullUrls = new HashMap<String, Resource>();
+
+    for (val entry : entries) {
+      val resource = entry.getResource();
+      if (resource == null) {
+        continue;
+      }
+
+      allResources.add(resource);
+      types.computeIfAbsent(resource.getResourceType(), t -> new ArrayList<>()).add(resource);
+      if (entry.hasFullUrl()) {
+        fullUrls.putIfAbsent(entry.getFullUrl(), resource);
+      }
+
+      for (val profile : resource.getMeta().getProfile()) {
+        val url = profile.getValue();
+        if (url == null) {
+          continue;
+        }
+        val separator = url.indexOf('|');
+        val canonical = separator < 0 ? url : url.substring(0, separator);
+        val profiled = profiles.computeIfAbsent(canonical, c -> new ArrayList<>());
+        // a resource might claim the same profile in different versions
+        if (profiled.isEmpty() || profiled.get(profiled.size() - 1) != resource) {
+          profiled.add(resource);
+        }
+      }
+    }
+
+    this.resources = Collections.unmodifiableList(allResources);
+    this.byResourceType = unmodifiable(types);
+    this.byProfile = unmodifiable(profiles);
+    this.byFullUrl = Collections.unmodifiableMap(fullUrls);
+  }
+
+  public static BundleIndex of(Bundle bundle) {
+    return of(bundle.getEntry());
+  }
+
+  public static BundleIndex of(List<BundleEntryComponent> bundleEntries) {
+    return new BundleIndex(bundleEntries);
+  }
+
+  /**
+   * @return all entry resources in the order of the bundle entries
+   */
+  public List<Resource> getResources() {
+    return this.resources;
+  }
+
+  public List<Resource> getResources(ResourceType resourceType) {
+    return this.byResourceType.getOrDefault(resourceType, List.of());
+  }
+
+  public <R extends Resource> List<R> getResources(ResourceType resourceType, Class<R> type) {
+    return this.getResources(resourceType).stream().map(type::cast).toList();
+  }
+
+  /**
+   * Get all entry resources which claim a profile of the given system in any version
+   *
+   * @param system is the profile to look up
+   * @return the matching resources in the order of the bundle entries
+   */
+  public List<Resource> getResources(WithSystem system) {
+    return this.byProfile.getOrDefault(system.getCanonicalUrl(), List.of());
+  }
+
+  /**
+   * The indexed counterpart of {@link WithSystem#findFirstResource(List)}
+   *
+   * @param system is the profile to look up
+   * @return the first resource which claims a profile of the given system
+   */
+  public Optional<Resource> findFirstResource(WithSystem system) {
+    val profiled = this.getResources(system);
+    return profiled.isEmpty() ? Optional.empty() : Optional.of(profiled.get(0));
+  }
+
+  /**
+   * @param fullUrl of the bundle entry
+   * @return the resource of the first entry with the given full URL
+   */
+  public Optional<Resource> findByFullUrl(String fullUrl) {
+    return Optional.ofNullable(fullUrl).map(this.byFullUrl::get);
+  }
+
+  public int size() {
+    return this.resources.size();
+  }
+
+  private static <K> Map<K, List<Resource>> unmodifiable(Map<K, List<Resource>> index) {
+    index.replaceAll((key, values) -> Collections.unmodifiableList(values));
+    return Collections.unmodifiableMap(index);
+  }
+}
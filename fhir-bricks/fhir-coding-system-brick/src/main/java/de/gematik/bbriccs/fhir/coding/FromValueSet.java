@@ -21,7 +21,6 @@
 package de.gematik.bbriccs.fhir.coding;
 
 import de.gematik.bbriccs.fhir.coding.exceptions.InvalidValueSetException;
-import java.util.Arrays;
 import lombok.val;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
@@ -91,10 +90,45 @@ public interface FromValueSet {
     return coding;
   }
 
+  /**
+   * Get the constant of the given ValueSet enum which has the given code. The lookup is backed by
+   * an index which is built once per enum class
+   *
+   * @param clazz of the ValueSet enum
+   * @param code to look up
+   * @return the matching constant
+   * @param <V> the type of the ValueSet enum
+   * @throws InvalidValueSetException if the ValueSet does not contain the given code
+   */
   static <V extends Enum<?> & FromValueSet> V fromCode(Class<V> clazz, String code) {
-    return Arrays.stream(clazz.getEnumConstants())
-        .filter(pt -> pt.getCode().equals(code))
-        .findFirst()
-        .orElseThrow(() -> new InvalidValueSetException(clazz, code));
+    val value = ValueSetIndex.of(clazz).get(code);
+    if (value == null) {
+      throw new InvalidValueSetException(clazz, code);
+    }
+    return clazz.cast(value);
+  }
+
+  /**
+   * Get the constant of the given ValueSet enum which has the given code within the given system. A
+   * version suffix of the system like {@code |1.0.0} is ignored, just as in {@link
+   * WithSystem#matches(String)}
+   *
+   * @param clazz of the ValueSet enum
+   * @param system is the canonical URL of the code system
+   * @param code to look up
+   * @return the matching constant
+   * @param <V> the type of the ValueSet enum
+   * @throws InvalidValueSetException if the ValueSet does not contain the given code for the system
+   */
+  static <V extends Enum<?> & FromValueSet> V fromCode(Class<V> clazz, String system, String code) {
+    val value = ValueSetIndex.of(clazz).get(system, code);
+    if (value == null) {
+      throw new InvalidValueSetException(clazz, system + "|" + code);
+    }
+    return clazz.cast(value);
+  }
+
+  static <V extends Enum<?> & FromValueSet> V fromCoding(Class<V> clazz, Coding coding) {
+    return fromCode(clazz, coding.getSystem(), coding.getCode());
   }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.coding;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.val;
+
+/**
+ * Lookup index for the constants of a {@link FromValueSet} enum which is built once per enum class
+ * and cached for the lifetime of the class
+ */
+final class ValueSetIndex {
+
+  private static final ClassValue<ValueSetIndex> INDEXES =
+      new ClassValue<>() {
+        @Override
+        protected ValueSetIndex computeValue(Class<?> type) {
+          return new ValueSetIndex((FromValueSet[]) type.getEnumConstants());
+        }
+      };
+
+  private final Map<String, FromValueSet> byCode;
+
+  /** maps the canonical URL of a code system to the constants coded within this system */
+  private final Map<String, Map<String, FromValueSet>> bySystemAndCode;
+
+  private ValueSetIndex(FromValueSet[] constants) {
+    val codes = new HashMap<String, FromValueSet>();
+    val systems = new HashMap<String, Map<String, FromValueSet>>();
+
+    // on duplicate codes the first declared constant wins just as with a linear scan
+    for (val constant : constants) {
+      codes.putIfAbsent(constant.getCode(), constant);
+      systems
+          .computeIfAbsent(constant.getCodeSystem().getCanonicalUrl(), s -> new HashMap<>())
+          .putIfAbsent(constant.getCode(), constant);
+    }
+
+    systems.replaceAll((system, codesOfSystem) -> Collections.unmodifiableMap(codesOfSystem));
+    this.byCode = Collections.unmodifiableMap(codes);
+    this.bySystemAndCode = Collections.unmodifiableMap(systems);
+  }
+
+  static ValueSetIndex of(Class<? extends FromValueSet> clazz) {
+    return INDEXES.get(clazz);
+  }
+
+  FromValueSet get(String code) {
+    return code == null ? null : this.byCode.get(code);
+  }
+
+  /**
+   * @param system the canonical URL of the code system, optionally with a version suffix like
+   *     {@code |1.0.0}
+   * @param code the code within the given system
+   * @return the matching constant or null if there is none
+   */
+  FromValueSet get(String system, String code) {
+    if (system == null || code == null) {
+      return null;
+    }
+
+    val versionSeparator = system.indexOf('|');
+    val canonical = versionSeparator < 0 ? system : system.substring(0, versionSeparator);
+    val codesOfSystem = this.bySystemAndCode.get(canonical);
+    return codesOfSystem == null ? null : codesOfSystem.get(code);
+  }
+}
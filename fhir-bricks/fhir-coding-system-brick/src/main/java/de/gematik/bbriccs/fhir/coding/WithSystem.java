@@ -107,6 +107,18 @@ public interface WithSystem {
         .findFirst();
   }
 
+  /**
+   * Find the first resource in the given {@link BundleIndex} which claims a profile of this system.
+   * Prefer this over {@link #findFirstResource(List)} when looking up many resources in the same
+   * bundle.
+   *
+   * @param bundleIndex is the indexed view of the bundle to search in
+   * @return the first resource which matches the system
+   */
+  default Optional<Resource> findFirstResource(BundleIndex bundleIndex) {
+    return bundleIndex.findFirstResource(this);
+  }
+
   /**
    * Check if the given {@link BundleEntryComponent} matches this system.
    *
@@ -139,45 +151,99 @@ public interface WithSystem {
   }
 
   default boolean matches(Meta meta) {
-    return this.matches(meta.getProfile().toArray(CanonicalType[]::new));
+    for (val profile : meta.getProfile()) {
+      if (this.matches(profile.asStringValue())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   default boolean matches(Identifier... identifier) {
-    return Arrays.stream(identifier).anyMatch(id -> this.matches(id.getSystem()));
+    for (val id : identifier) {
+      if (this.matches(id.getSystem())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   default boolean matches(Coding... coding) {
-    return Arrays.stream(coding).anyMatch(c -> this.matches(c.getSystem()));
+    for (val c : coding) {
+      if (this.matches(c.getSystem())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   default boolean matches(CodeableConcept... codeableConcepts) {
-    return Arrays.stream(codeableConcepts)
-        .flatMap(cc -> cc.getCoding().stream())
-        .anyMatch(this::matches);
+    for (val cc : codeableConcepts) {
+      for (val c : cc.getCoding()) {
+        if (this.matches(c.getSystem())) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   default boolean matches(Extension... extension) {
-    return Arrays.stream(extension).anyMatch(e -> this.matches(e.getUrl()));
+    for (val e : extension) {
+      if (this.matches(e.getUrl())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   default boolean matches(CanonicalType... canonicalType) {
-    return Arrays.stream(canonicalType).anyMatch(ct -> this.matches(ct.asStringValue()));
+    for (val ct : canonicalType) {
+      if (this.matches(ct.asStringValue())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   default boolean matches(WithSystem... other) {
-    return Arrays.stream(other).anyMatch(ws -> this.matches(ws.getCanonicalUrl()));
+    for (val ws : other) {
+      if (this.matches(ws.getCanonicalUrl())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   default boolean matchesReferenceIdentifier(Reference... reference) {
-    return Arrays.stream(reference).anyMatch(r -> this.matches(r.getIdentifier()));
+    for (val r : reference) {
+      if (this.matches(r.getIdentifier())) {
+        return true;
+      }
+    }
+    return false;
   }
 
+  /**
+   * Check if the given URL denotes this system. The URL matches if it is either exactly the
+   * canonical URL or the canonical URL followed by a version suffix like {@code |1.0.0}.
+   *
+   * <p><b>Note:</b> this check is performed on the regions of the given URL without allocating
+   * intermediate strings because it runs for every coding, identifier and extension which is
+   * inspected
+   *
+   * @param url to be checked
+   * @return true if the URL denotes this system
+   */
   default boolean matches(String url) {
     if (url == null) {
       return false;
     }
-    val withoutVersion = url.split("\\|")[0];
-    return this.getCanonicalUrl().equals(withoutVersion);
+    val canonicalUrl = this.getCanonicalUrl();
+    val length = canonicalUrl.length();
+    return url.startsWith(canonicalUrl)
+        && (url.length() == length || url.charAt(length) == '|')
+        && canonicalUrl.indexOf('|') < 0;
   }
 
   static AnyOfSystemMatcher anyOf(WithSystem... systems) {
@@ -186,10 +252,10 @@ public interface WithSystem {
 
   class AnyOfSystemMatcher {
 
-    private final List<WithSystem> systems;
+    private final WithSystem[] systems;
 
     public AnyOfSystemMatcher(List<WithSystem> systems) {
-      this.systems = systems;
+      this.systems = systems.toArray(WithSystem[]::new);
     }
 
     public boolean matches(BundleEntryComponent bundleEntry) {
@@ -201,14 +267,21 @@ public interface WithSystem {
     }
 
     public boolean matches(Meta meta) {
-      return systems.stream().anyMatch(system -> system.matches(meta));
+      for (val profile : meta.getProfile()) {
+        if (this.matches(profile.asStringValue())) {
+          return true;
+        }
+      }
+      return false;
     }
 
     public boolean matchesReferenceIdentifier(Reference... reference) {
-      return systems.stream()
-          .anyMatch(
-              system ->
-                  Arrays.stream(reference).map(Reference::getIdentifier).anyMatch(system::matches));
+      for (val r : reference) {
+        if (this.matches(r.getIdentifier().getSystem())) {
+          return true;
+        }
+      }
+      return false;
     }
 
     public boolean matches(Identifier... identifier) {
@@ -216,12 +289,16 @@ public interface WithSystem {
     }
 
     public boolean matches(Coding... coding) {
-      return systems.stream().anyMatch(system -> Arrays.stream(coding).anyMatch(system::matches));
+      return matchesAnyCoding(Arrays.asList(coding));
     }
 
     public boolean matches(CodeableConcept... codeableConcepts) {
-      return systems.stream()
-          .anyMatch(system -> Arrays.stream(codeableConcepts).anyMatch(system::matches));
+      for (val cc : codeableConcepts) {
+        if (this.matchesAnyCoding(cc.getCoding())) {
+          return true;
+        }
+      }
+      return false;
     }
 
     public boolean matches(Extension... extension) {
@@ -229,20 +306,48 @@ public interface WithSystem {
     }
 
     public boolean matches(CanonicalType... canonicalType) {
-      return systems.stream()
-          .anyMatch(system -> Arrays.stream(canonicalType).anyMatch(system::matches));
+      for (val ct : canonicalType) {
+        if (this.matches(ct.asStringValue())) {
+          return true;
+        }
+      }
+      return false;
     }
 
     public boolean matchesAnyIdentifier(List<Identifier> identifiers) {
-      return systems.stream().anyMatch(system -> identifiers.stream().anyMatch(system::matches));
+      for (val id : identifiers) {
+        if (this.matches(id.getSystem())) {
+          return true;
+        }
+      }
+      return false;
     }
 
     public boolean matchesAnyCoding(List<Coding> codings) {
-      return systems.stream().anyMatch(system -> codings.stream().anyMatch(system::matches));
+      for (val c : codings) {
+        if (this.matches(c.getSystem())) {
+          return true;
+        }
+      }
+      return false;
     }
 
     public boolean matchesAnyExtension(List<Extension> extensions) {
-      return systems.stream().anyMatch(system -> extensions.stream().anyMatch(system::matches));
+      for (val e : extensions) {
+        if (this.matches(e.getUrl())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    public boolean matches(String url) {
+      for (val system : this.systems) {
+        if (system.matches(url)) {
+          return true;
+        }
+      }
+      return false;
     }
   }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.coding.version;
+
+import static java.text.MessageFormat.format;
+
+import de.gematik.bbriccs.fhir.coding.exceptions.FhirVersionException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.val;
+
+/**
+ * An immutable, parsed version of the form MAJOR.MINOR or MAJOR.MINOR.PATCH. A missing patch is
+ * treated as a zero patch, thus 1.2 and 1.2.0 are equal, while 1.2 and 1.2.1 are not.
+ *
+ * <p>Only plain versions without leading zeros are accepted because these compare equally as
+ * strings and as numbers. Parsed instances are interned, thus parsing a known version is a single
+ * map lookup and comparing two versions is a comparison of integers
+ */
+@Getter
+public final class Version implements Comparable<Version> {
+
+  private static final int MAX_INTERNED = 10_000;
+  private static final Map<String, Version> INTERNED = new ConcurrentHashMap<>();
+
+  private final int major;
+  private final int minor;
+  private final int patch;
+  private final boolean withPatch;
+
+  private Version(int major, int minor, int patch, boolean withPatch) {
+    this.major = major;
+    this.minor = minor;
+    this.patch = patch;
+    this.withPatch = withPatch;
+  }
+
+  /**
+   * Parse the given plain version
+   *
+   * @param version of the form MAJOR.MINOR or MAJOR.MINOR.PATCH
+   * @return the parsed {@link Version}
+   * @throws FhirVersionException if the given string is not a plain version
+   */
+  public static Version of(String version) {
+    return parse(version)
+        .orElseThrow(
+            () -> new FhirVersionException(format("Given input is not a version: {0}", version)));
+  }
+
+  /**
+   * Parse the given plain version if possible
+   *
+   * @param version of the form MAJOR.MINOR or MAJOR.MINOR.PATCH
+   * @return the parsed {@link Version} or an empty optional if the given string is not a plain
+   *     version
+   */
+  public static Optional<Version> parse(String version) {
+    if (version == null) return Optional.empty();
+
+    var parsed = INTERNED.get(version);
+    if (parsed == null) {
+      parsed = doParse(version);
+      if (parsed != null && INTERNED.size() < MAX_INTERNED) {
+        val known = INTERNED.putIfAbsent(version, parsed);
+        parsed = known != null ? known : parsed;
+      }
+    }
+    return Optional.ofNullable(parsed);
+  }
+
+  private static Version doParse(String version) {
+    val tokens = new int[3];
+    var tokenCount = 0;
+    var tokenStart = 0;
+    for (var i = 0; i <= version.length(); i++) {
+      if (i < version.length() && version.charAt(i) != '.') continue;
+      if (tokenCount == tokens.length) return null;
+
+      val token = parseToken(version, tokenStart, i);
+      if (token < 0) return null;
+      tokens[tokenCount++] = token;
+      tokenStart = i + 1;
+    }
+
+    if (tokenCount < 2) return null;
+    return new Version(tokens[0], tokens[1], tokens[2], tokenCount == 3);
+  }
+
+  /**
+   * @return the numeric value of the token or -1 if the token is empty, not numeric, has leading
+   *     zeros or is too long
+   */
+  private static int parseToken(String version, int start, int end) {
+    val length = end - start;
+    if (length == 0 || length > 9 || (length > 1 && version.charAt(start) == '0')) return -1;
+
+    var value = 0;
+    for (var i = start; i < end; i++) {
+      val c = version.charAt(i);
+      if (c < '0' || c > '9') return -1;
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  /**
+   * @return this version without the patch, e.g. 1.2 for 1.2.3
+   */
+  public Version withoutPatch() {
+    return this.withPatch ? new Version(this.major, this.minor, 0, false) : this;
+  }
+
+  /**
+   * @return this version without a zero patch, e.g. 1.2 for 1.2.0 while 1.2.3 is kept
+   */
+  public Version withoutZeroPatch() {
+    return this.patch == 0 ? this.withoutPatch() : this;
+  }
+
+  @Override
+  public int compareTo(Version other) {
+    var ret = Integer.compare(this.major, other.major);
+    if (ret == 0) ret = Integer.compare(this.minor, other.minor);
+    if (ret == 0) ret = Integer.compare(this.patch, other.patch);
+    return ret;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof Version other)) return false;
+    return this.major == other.major && this.minor == other.minor && this.patch == other.patch;
+  }
+
+  @Override
+  public int hashCode() {
+    return (this.major * 31 + this.minor) * 31 + this.patch;
+  }
+
+  @Override
+  public String toString() {
+    val majorMinor = this.major + "." + this.minor;
+    return this.withPatch ? majorMinor + "." + this.patch : majorMinor;
+  }
+}
@@ -57,6 +57,11 @@ public class VersionUtil {
   }
 
   public static String omitPatch(String input) {
+    val version = Version.parse(input);
+    if (version.isPresent()) {
+      return version.get().withoutPatch().toString();
+    }
+
     val matcher = SEMVER_REGEX.matcher(input);
     if (matcher.find()) {
       val patchGroup = matcher.group(PATCH_GROUP);
@@ -73,6 +78,11 @@ public class VersionUtil {
   }
 
   public static String omitZeroPatch(String input) {
+    val version = Version.parse(input);
+    if (version.isPresent()) {
+      return version.get().withoutZeroPatch().toString();
+    }
+
     val matcher = SEMVER_REGEX.matcher(input);
     if (matcher.find()) {
       val patchGroup = matcher.group(PATCH_GROUP);
@@ -122,6 +132,13 @@ public class VersionUtil {
    * @return true if both versions are equal
    */
   public static boolean areEqual(String left, String right) {
+    val leftVersion = Version.parse(left);
+    val rightVersion = Version.parse(right);
+    if (leftVersion.isPresent() || rightVersion.isPresent()) {
+      // a plain version can only be equal to another plain version
+      return leftVersion.equals(rightVersion);
+    }
+
     val leftTokens = left.split("\\.");
     val rightTokens = right.split("\\.");
 
@@ -137,6 +154,12 @@ public class VersionUtil {
   }
 
   public static int compare(String left, String right) {
+    val leftVersion = Version.parse(left);
+    val rightVersion = Version.parse(right);
+    if (leftVersion.isPresent() && rightVersion.isPresent()) {
+      return leftVersion.get().compareTo(rightVersion.get());
+    }
+
     // make sure versions have minor and patch in any case!!
     left += ".0.0";
     right += ".0.0";
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.coding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.gematik.bbriccs.fhir.coding.utils.TestBasisVersion;
+import de.gematik.bbriccs.fhir.coding.utils.TestProfileStructureDefinitionEnum;
+import java.util.List;
+import lombok.val;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Medication;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.junit.jupiter.api.Test;
+
+class BundleIndexTest {
+
+  private static Patient createPatient(TestProfileStructureDefinitionEnum profile) {
+    val patient = new Patient();
+    patient.getMeta().addProfile(profile.getVersionedUrl(TestBasisVersion.V0_9_13));
+    patient.getMeta().addProfile(profile.getCanonicalUrl());
+    return patient;
+  }
+
+  @Test
+  void shouldIndexByResourceType() {
+    val bundle = new Bundle();
+    val p1 = createPatient(TestProfileStructureDefinitionEnum.TYPE_ONE);
+    val m1 = new Medication();
+    val p2 = createPatient(TestProfileStructureDefinitionEnum.TYPE_TWO);
+    bundle.addEntry().setResource(p1);
+    bundle.addEntry().setResource(m1);
+    bundle.addEntry().setResource(p2);
+    bundle.addEntry(); // entry without a resource
+
+    val index = BundleIndex.of(bundle);
+    assertEquals(3, index.size());
+    assertEquals(List.of(p1, m1, p2), index.getResources());
+    assertEquals(List.of(p1, p2), index.getResources(ResourceType.Patient));
+    assertEquals(List.of(m1), index.getResources(ResourceType.Medication, Medication.class));
+    assertTrue(index.getResources(ResourceType.Coverage).isEmpty());
+  }
+
+  @Test
+  void shouldIndexByProfile() {
+    val bundle = new Bundle();
+    val p1 = createPatient(TestProfileStructureDefinitionEnum.TYPE_ONE);
+    val p2 = createPatient(TestProfileStructureDefinitionEnum.TYPE_TWO);
+    val p3 = createPatient(TestProfileStructureDefinitionEnum.TYPE_TWO);
+    bundle.addEntry().setResource(new Medication());
+    bundle.addEntry().setResource(p1);
+    bundle.addEntry().setResource(p2);
+    bundle.addEntry().setResource(p3);
+
+    val index = BundleIndex.of(bundle);
+    assertEquals(List.of(p2, p3), index.getResources(TestProfileStructureDefinitionEnum.TYPE_TWO));
+    assertEquals(
+        p1, TestProfileStructureDefinitionEnum.TYPE_ONE.findFirstResource(index).orElseThrow());
+    assertTrue(index.findFirstResource(TestProfileStructureDefinitionEnum.TYPE_THREE).isEmpty());
+  }
+
+  @Test
+  void shouldFindSameAsLinearScan() {
+    val bundle = new Bundle();
+    for (val profile : TestProfileStructureDefinitionEnum.values()) {
+      bundle.addEntry().setResource(createPatient(profile));
+      bundle.addEntry().setResource(new Medication());
+    }
+
+    val index = BundleIndex.of(bundle);
+    for (val profile : TestProfileStructureDefinitionEnum.values()) {
+      assertEquals(profile.findFirstResource(bundle.getEntry()), profile.findFirstResource(index));
+    }
+  }
+
+  @Test
+  void shouldIndexByFullUrl() {
+    val bundle = new Bundle();
+    val p1 = new Patient();
+    val p2 = new Patient();
+    bundle.addEntry().setFullUrl("urn:uuid:1").setResource(p1);
+    bundle.addEntry().setFullUrl("urn:uuid:1").setResource(p2);
+    bundle.addEntry().setResource(new Patient());
+
+    val index = BundleIndex.of(bundle);
+    assertEquals(p1, index.findByFullUrl("urn:uuid:1").orElseThrow());
+    assertTrue(index.findByFullUrl("urn:uuid:2").isEmpty());
+    assertTrue(index.findByFullUrl(null).isEmpty());
+  }
+
+  @Test
+  void shouldBeReadOnly() {
+    val bundle = new Bundle();
+    bundle.addEntry().setResource(createPatient(TestProfileStructureDefinitionEnum.TYPE_ONE));
+
+    val index = BundleIndex.of(bundle);
+    val resources = index.getResources();
+    val patients = index.getResources(ResourceType.Patient);
+    val profiled = index.getResources(TestProfileStructureDefinitionEnum.TYPE_ONE);
+    val medication = new Medication();
+    assertThrows(UnsupportedOperationException.class, () -> resources.add(medication));
+    assertThrows(UnsupportedOperationException.class, () -> patients.add(medication));
+    assertThrows(UnsupportedOperationException.class, () -> profiled.add(medication));
+    assertThrows(UnsupportedOperationException.class, () -> profiled.remove(0));
+
+    // the view is a snapshot of the bundle
+    bundle.addEntry().setResource(new Patient());
+    assertEquals(1, index.getResources(ResourceType.Patient).size());
+  }
+}
@@ -85,4 +85,39 @@ class FromValueSetTest {
         InvalidValueSetException.class,
         () -> FromValueSet.fromCode(TestProfileValueSet.class, "AC"));
   }
+
+  @Test
+  void shouldThrowOnNullCode() {
+    assertThrows(
+        InvalidValueSetException.class,
+        () -> FromValueSet.fromCode(TestProfileValueSet.class, null));
+  }
+
+  @Test
+  void shouldCreateFromSystemAndCode() {
+    val system = TestCodeSystem.TYPE_A.getCanonicalUrl();
+    assertEquals(
+        TestProfileValueSet.AB, FromValueSet.fromCode(TestProfileValueSet.class, system, "AB"));
+    assertEquals(
+        TestProfileValueSet.AB,
+        FromValueSet.fromCode(TestProfileValueSet.class, system + "|1.0.0", "AB"));
+  }
+
+  @Test
+  void shouldCreateFromCoding() {
+    val coding = TestProfileValueSet.AA.asCoding(true);
+    assertEquals(
+        TestProfileValueSet.AA, FromValueSet.fromCoding(TestProfileValueSet.class, coding));
+  }
+
+  @Test
+  void shouldThrowOnCodeFromOtherSystem() {
+    val coding = TestProfileValueSet.AA.asCoding(TestCodeSystem.TYPE_B);
+    assertThrows(
+        InvalidValueSetException.class,
+        () -> FromValueSet.fromCoding(TestProfileValueSet.class, coding));
+    assertThrows(
+        InvalidValueSetException.class,
+        () -> FromValueSet.fromCode(TestProfileValueSet.class, null, "AA"));
+  }
 }
@@ -20,11 +20,14 @@
 
 package de.gematik.bbriccs.fhir.coding;
 
+import static java.text.MessageFormat.format;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import de.gematik.bbriccs.fhir.coding.utils.TestBasisVersion;
 import de.gematik.bbriccs.fhir.coding.utils.TestCodeSystem;
 import de.gematik.bbriccs.fhir.coding.utils.TestProfileStructureDefinitionEnum;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.List;
 import lombok.val;
@@ -307,4 +310,47 @@ class WithSystemTest {
 
     assertFalse(TestProfileStructureDefinitionEnum.TYPE_TWO.matches(extension));
   }
+
+  @Test
+  void shouldMatchOnlyCanonicalUrlOrVersionedUrl() {
+    val system = TestCodeSystem.TYPE_A;
+    val url = system.getCanonicalUrl();
+    assertTrue(system.matches(url));
+    assertTrue(system.matches(url + "|1.0.0"));
+    assertTrue(system.matches(url + "|"));
+    assertFalse(system.matches(url + "-Extended"));
+    assertFalse(system.matches(url + "/1.0.0"));
+    assertFalse(system.matches(url.substring(0, url.length() - 1)));
+    assertFalse(system.matches("|" + url));
+  }
+
+  @Test
+  void shouldMatchWithoutAllocation() {
+    assumeTrue(
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+            && threadMXBean.isThreadAllocatedMemorySupported());
+    val threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    val threadId = Thread.currentThread().getId();
+
+    val matcher = WithSystem.anyOf(TestCodeSystem.TYPE_B, TestCodeSystem.TYPE_A);
+    val versioned = TestCodeSystem.TYPE_A.getCanonicalUrl() + "|1.0.0";
+    val other = "https://gematik.de/test/CodeSystem/Type-C|1.0.0";
+
+    val rounds = 100_000;
+    var matches = 0;
+    val before = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (var i = 0; i < rounds; i++) {
+      if (TestCodeSystem.TYPE_A.matches(versioned) && matcher.matches(versioned)) {
+        matches++;
+      }
+      if (matcher.matches(other)) {
+        matches--;
+      }
+    }
+    val allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertEquals(rounds, matches);
+    // splitting the URL would allocate several MB here, allow some slack for the measurement itself
+    assertTrue(allocated < 64 * 1024, () -> format("allocated {0} bytes", allocated));
+  }
 }
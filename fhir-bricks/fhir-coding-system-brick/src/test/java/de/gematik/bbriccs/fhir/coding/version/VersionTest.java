@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.coding.version;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.gematik.bbriccs.fhir.coding.exceptions.FhirVersionException;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class VersionTest {
+
+  @ParameterizedTest
+  @CsvSource(
+      value = {"1.2:1:2:0:false", "1.2.3:1:2:3:true", "0.9.13:0:9:13:true", "10.0.0:10:0:0:true"},
+      delimiter = ':')
+  void shouldParseVersions(String input, int major, int minor, int patch, boolean withPatch) {
+    val version = Version.of(input);
+    assertEquals(major, version.getMajor());
+    assertEquals(minor, version.getMinor());
+    assertEquals(patch, version.getPatch());
+    assertEquals(withPatch, version.isWithPatch());
+    assertEquals(input, version.toString());
+  }
+
+  @ParameterizedTest
+  @NullSource
+  @ValueSource(
+      strings = {
+        "",
+        "1",
+        "1.",
+        ".1",
+        "1..2",
+        "1.2.3.4",
+        "01.2",
+        "1.02",
+        "1.2.00",
+        "v1.2",
+        "1.2-a",
+        "1234567890.1"
+      })
+  void shouldNotParseInvalidVersions(String input) {
+    assertTrue(Version.parse(input).isEmpty());
+  }
+
+  @Test
+  void shouldThrowOnInvalidVersion() {
+    assertThrows(FhirVersionException.class, () -> Version.of("1.2.3.4"));
+  }
+
+  @Test
+  void shouldInternParsedVersions() {
+    assertSame(Version.of("1.3.2"), Version.of("1.3.2"));
+  }
+
+  @ParameterizedTest
+  @CsvSource(
+      value = {"1.2.0:1.2:0", "1.2.3:1.2.3:0", "1.2:1.2.1:-1", "1.10.0:1.9.9:1", "2.0:1.99.99:1"},
+      delimiter = ':')
+  void shouldCompareNumerically(String left, String right, int expected) {
+    val l = Version.of(left);
+    val r = Version.of(right);
+    assertEquals(expected, l.compareTo(r));
+    assertEquals(expected == 0, l.equals(r));
+    if (expected == 0) assertEquals(l.hashCode(), r.hashCode());
+  }
+
+  @Test
+  void shouldOmitPatches() {
+    assertEquals("1.2", Version.of("1.2.3").withoutPatch().toString());
+    assertEquals("1.2.3", Version.of("1.2.3").withoutZeroPatch().toString());
+    assertEquals("1.2", Version.of("1.2.0").withoutZeroPatch().toString());
+    val noPatch = Version.of("1.2");
+    assertSame(noPatch, noPatch.withoutPatch());
+    assertSame(noPatch, noPatch.withoutZeroPatch());
+  }
+}
@@ -31,6 +31,7 @@ import de.gematik.bbriccs.fhir.coding.utils.TestBasisVersion;
 import de.gematik.bbriccs.fhir.coding.utils.TestDefaultVersionClass;
 import de.gematik.bbriccs.fhir.coding.utils.TestSingleEnumVersion;
 import de.gematik.bbriccs.fhir.conf.ProfilesConfigurator;
+import de.gematik.bbriccs.toggle.FeatureToggle;
 import de.gematik.bbriccs.utils.PrivateConstructorsUtil;
 import de.gematik.bbriccs.utils.StopwatchUtil;
 import java.util.List;
@@ -38,6 +39,7 @@ import java.util.stream.Stream;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -49,6 +51,12 @@ import org.junitpioneer.jupiter.ClearSystemProperty;
 @Slf4j
 class VersionUtilTest {
 
+  @AfterAll
+  static void resetToggles() {
+    // system properties are changed at runtime by the tests
+    FeatureToggle.refresh();
+  }
+
   @Test
   void shouldNotInstantiate() {
     assertTrue(PrivateConstructorsUtil.isUtilityConstructor(VersionUtil.class));
@@ -626,6 +634,7 @@ class VersionUtilTest {
   void shouldReadDefaultFromMultiEnumVersionViaSysProp(String profile, String expectedVersion) {
     val toggleName = "bbriccs.fhir.profile.versionutiltest";
     System.setProperty(toggleName, profile);
+    FeatureToggle.refresh();
     // prepares the virtual default configuration
     val profiles = ProfilesConfigurator.getDefaultConfiguration(toggleName);
     val v = VersionUtil.getDefaultVersion(TestBasisVersion.class, "my.profile.r4");
@@ -29,10 +29,10 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import de.gematik.bbriccs.fhir.conf.exceptions.FhirConfigurationException;
 import de.gematik.bbriccs.toggle.FeatureToggle;
 import de.gematik.bbriccs.utils.ResourceLoader;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.SneakyThrows;
@@ -49,11 +49,15 @@ public class ProfilesConfigurator {
       String.valueOf(System.currentTimeMillis());
   private static final String DEFAULT_CONFIG_FILE_NAME = "fhir/configuration.yaml";
 
-  private static final Map<String, ProfilesConfigurator> configCache = new HashMap<>();
+  /**
+   * Configurations are read once per configuration file and feature toggle, even when requested
+   * concurrently by parallel test runners
+   */
+  private static final Map<String, ProfilesConfigurator> configCache = new ConcurrentHashMap<>();
 
   private final List<ProfileSettingsDto> profileConfigurations;
   private final String featureToggleName;
-  private ProfileSettingsDto defaultProfile;
+  private volatile ProfileSettingsDto defaultProfile;
 
   private ProfilesConfigurator(
       List<ProfileSettingsDto> profileConfigurations, String featureToggleName) {
@@ -62,6 +66,7 @@ public class ProfilesConfigurator {
 
     // calculate the initial default profile
     // Note: the default profile can be changed by changing the system property at runtime
+    // followed by a FeatureToggle.refresh()
     this.defaultProfile = initializeDefaultProfile();
   }
 
@@ -23,8 +23,13 @@ package de.gematik.bbriccs.fhir.conf;
 import static org.junit.jupiter.api.Assertions.*;
 
 import de.gematik.bbriccs.fhir.conf.exceptions.FhirConfigurationException;
+import de.gematik.bbriccs.toggle.FeatureToggle;
+import de.gematik.bbriccs.utils.ConcurrencyUtil;
 import de.gematik.bbriccs.utils.ResourceFileException;
+import java.util.List;
 import lombok.val;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -32,12 +37,46 @@ import org.junitpioneer.jupiter.SetSystemProperty;
 
 class ProfilesConfiguratorTest {
 
+  @BeforeEach
+  void refreshToggles() {
+    // system properties are changed at runtime by the tests
+    FeatureToggle.refresh();
+  }
+
+  @AfterAll
+  static void resetToggles() {
+    FeatureToggle.refresh();
+  }
+
   @Test
   void shouldNotInstantiateSingletonTwice() {
     val i1 = ProfilesConfigurator.getDefaultConfiguration();
     assertEquals(i1, ProfilesConfigurator.getDefaultConfiguration());
   }
 
+  @Test
+  void shouldLoadConfigurationOnceWhenAccessedConcurrently() {
+    val toggleName = "bbriccs.fhir.profile.concurrent";
+    val results =
+        ConcurrencyUtil.runConcurrently(
+            16,
+            500,
+            i ->
+                List.of(
+                    ProfilesConfigurator.getConfiguration("configuration", toggleName),
+                    ProfilesConfigurator.getDefaultConfiguration(toggleName),
+                    ProfilesConfigurator.getDefaultConfiguration()));
+
+    val expected = results.get(0);
+    assertSame(expected.get(0), expected.get(1));
+    for (val configurators : results) {
+      for (var i = 0; i < configurators.size(); i++) {
+        assertSame(expected.get(i), configurators.get(i));
+        assertEquals("1.2.0", configurators.get(i).getDefaultProfile().getId());
+      }
+    }
+  }
+
   @Test
   void shouldReadDefaultConfig() {
     val config = ProfilesConfigurator.getDefaultConfiguration();
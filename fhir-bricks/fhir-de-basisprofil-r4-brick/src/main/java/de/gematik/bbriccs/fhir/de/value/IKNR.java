@@ -107,6 +107,33 @@ public class IKNR extends SemanticValue<String, DeBasisProfilNamingSystem> imple
     return format("{0}{1}", numbers, checksum);
   }
 
+  public static Stream<IKNR> randomArgeIknr(long count, long seed) {
+    return randomStringValues(count, seed).map(IKNR::asArgeIknr);
+  }
+
+  public static Stream<IKNR> randomSidIknr(long count, long seed) {
+    return randomStringValues(count, seed).map(IKNR::asSidIknr);
+  }
+
+  /**
+   * Generate a stream of distinct IKNR values with valid checksums. The values are derived lazily
+   * from a seeded permutation of all 8 digit numbers. Thus, none of the previous values needs to be
+   * stored to guarantee uniqueness, even for large counts
+   *
+   * @param count of values to generate, at most 100 million
+   * @param seed to reproduce the same sequence of values
+   * @return a stream of {@code count} unique IKNR values
+   * @throws IllegalArgumentException if the count exceeds the number of possible IKNRs
+   */
+  public static Stream<String> randomStringValues(long count, long seed) {
+    return UniqueIndexSequence.of(100_000_000L, count, seed)
+        .mapToObj(
+            index -> {
+              val numbers = UniqueIndexSequence.zeroPadded(index, 8);
+              return numbers + calcChecksum(numbers);
+            });
+  }
+
   private static int calcChecksum(String number) {
     var sum = 0;
     for (var i = 7; i >= 2; i--) {
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.val;
@@ -78,6 +79,9 @@ public class KVNR extends SemanticValue<String, DeBasisProfilNamingSystem> imple
       List.of(KVID_GKV_SID, KVID_PKV_SID, KVID);
   private static final Pattern KVNR_PATTERN = Pattern.compile("^([A-Z])(\\d{8})(\\d)$");
 
+  /** number of distinct 8 digit numbers following the leading capital letter */
+  private static final long KVNR_NUMBERS = 100_000_000L;
+
   private final InsuranceTypeDe insuranceType;
 
   private KVNR(DeBasisProfilNamingSystem namingSystem, String value) {
@@ -177,6 +181,30 @@ public class KVNR extends SemanticValue<String, DeBasisProfilNamingSystem> imple
     return asGkv(randomStringValue());
   }
 
+  /**
+   * Generate a stream of distinct GKV {@link KVNR}s with valid check numbers
+   *
+   * @param count of KVNRs to generate, at most 2.6 billion
+   * @param seed to reproduce the same sequence of KVNRs
+   * @return a stream of {@code count} unique KVNRs
+   * @see #randomStringValues(long, long)
+   */
+  public static Stream<KVNR> randomGkv(long count, long seed) {
+    return randomStringValues(count, seed).map(KVNR::asGkv);
+  }
+
+  /**
+   * Generate a stream of distinct PKV {@link KVNR}s with valid check numbers
+   *
+   * @param count of KVNRs to generate, at most 2.6 billion
+   * @param seed to reproduce the same sequence of KVNRs
+   * @return a stream of {@code count} unique KVNRs
+   * @see #randomStringValues(long, long)
+   */
+  public static Stream<KVNR> randomPkv(long count, long seed) {
+    return randomStringValues(count, seed).map(KVNR::asPkv);
+  }
+
   public static KVNR asPkv(String value) {
     return from(value, InsuranceTypeDe.PKV);
   }
@@ -241,6 +269,26 @@ public class KVNR extends SemanticValue<String, DeBasisProfilNamingSystem> imple
     return format("{0}{1}{2}", capLetter, numbers, checkNum);
   }
 
+  /**
+   * Generate a stream of distinct KVNR values with valid check numbers. The values are derived
+   * lazily from a seeded permutation of all letter and number combinations. Thus, none of the
+   * previous values needs to be stored to guarantee uniqueness, even for large counts
+   *
+   * @param count of values to generate, at most 2.6 billion
+   * @param seed to reproduce the same sequence of values
+   * @return a stream of {@code count} unique KVNR values
+   * @throws IllegalArgumentException if the count exceeds the number of possible KVNRs
+   */
+  public static Stream<String> randomStringValues(long count, long seed) {
+    return UniqueIndexSequence.of(26 * KVNR_NUMBERS, count, seed)
+        .mapToObj(
+            index -> {
+              val capLetter = (char) ('A' + index / KVNR_NUMBERS);
+              val numbers = UniqueIndexSequence.zeroPadded(index % KVNR_NUMBERS, 8);
+              return capLetter + numbers + calculateCheckNumber(capLetter, numbers);
+            });
+  }
+
   private static InsuranceTypeDe getInsuranceTypeFor(DeBasisProfilNamingSystem system) {
     return switch (system) {
       case KVID, KVID_GKV_SID -> InsuranceTypeDe.GKV;
@@ -27,11 +27,14 @@ import de.gematik.bbriccs.fhir.coding.SemanticValue;
 import de.gematik.bbriccs.fhir.coding.exceptions.InvalidSystemException;
 import de.gematik.bbriccs.fhir.de.DeBasisProfilNamingSystem;
 import java.util.Optional;
+import java.util.stream.Stream;
 import lombok.val;
 import org.hl7.fhir.r4.model.Identifier;
 
 public class TelematikID extends SemanticValue<String, DeBasisProfilNamingSystem> {
 
+  private static final String SMCB_TEST_CARD_PREFIX = "3-SMC-B-Testkarte-";
+
   private TelematikID(String telematikId) {
     super(DeBasisProfilNamingSystem.TELEMATIK_ID_SID, telematikId);
   }
@@ -39,10 +42,24 @@ public class TelematikID extends SemanticValue<String, DeBasisProfilNamingSystem
   public static TelematikID random() {
     val faker = FakerBrick.getGerman();
     // 3-SMC-B-Testkarte-883110000116873
-    val id = format("3-SMC-B-Testkarte-{0}", faker.regexify("[0-9]{15}"));
+    val id = SMCB_TEST_CARD_PREFIX + faker.regexify("[0-9]{15}");
     return from(id);
   }
 
+  /**
+   * Generate a stream of distinct {@link TelematikID}s of SMC-B test cards. The 15 digit numbers
+   * are derived lazily from a seeded permutation, thus none of the previous values needs to be
+   * stored to guarantee uniqueness, even for large counts
+   *
+   * @param count of TelematikIDs to generate
+   * @param seed to reproduce the same sequence of TelematikIDs
+   * @return a stream of {@code count} unique TelematikIDs
+   */
+  public static Stream<TelematikID> random(long count, long seed) {
+    return UniqueIndexSequence.of(1_000_000_000_000_000L, count, seed)
+        .mapToObj(index -> from(SMCB_TEST_CARD_PREFIX + UniqueIndexSequence.zeroPadded(index, 15)));
+  }
+
   public static TelematikID from(String value) {
     return new TelematikID(value);
   }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.de.value;
+
+import static java.text.MessageFormat.format;
+
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import lombok.val;
+
+/**
+ * Generates distinct indexes from a space of {@code 0} to {@code size - 1} in a seeded random
+ * order. The indexes are the sequence {@code (offset + i * stride) mod size}. The stride is coprime
+ * to the size, so the sequence is a permutation of the whole space. Thus, the first {@code size}
+ * indexes are unique without storing any of the previous ones.
+ */
+final class UniqueIndexSequence {
+
+  private UniqueIndexSequence() {
+    throw new IllegalAccessError("Utility class");
+  }
+
+  /**
+   * @param size of the index space
+   * @param count of indexes to generate which must not exceed the size of the index space
+   * @param seed to derive the order of the indexes from
+   * @return a stream of {@code count} distinct indexes
+   */
+  static LongStream of(long size, long count, long seed) {
+    if (count < 0 || count > size) {
+      throw new IllegalArgumentException(
+          format("Cannot generate {0} unique values from a space of {1}", count, size));
+    }
+
+    val random = new SplittableRandom(seed);
+    val offset = random.nextLong(size);
+    var candidate = size > 1 ? random.nextLong(1, size) : 1;
+    while (gcd(candidate, size) != 1) {
+      candidate = random.nextLong(1, size);
+    }
+    val stride = candidate;
+
+    return LongStream.iterate(
+            offset,
+            index -> {
+              // offset and stride are both below the size, thus the sum cannot overflow
+              val next = index + stride;
+              return next >= size ? next - size : next;
+            })
+        .limit(count);
+  }
+
+  /**
+   * @param value to be formatted
+   * @param digits the number of digits to left-pad the value with zeros to
+   * @return the zero-padded decimal representation of the value
+   */
+  static String zeroPadded(long value, int digits) {
+    val plain = Long.toString(value);
+    return "0".repeat(Math.max(0, digits - plain.length())) + plain;
+  }
+
+  private static long gcd(long a, long b) {
+    while (b != 0) {
+      val t = b;
+      b = a % b;
+      a = t;
+    }
+    return a;
+  }
+}
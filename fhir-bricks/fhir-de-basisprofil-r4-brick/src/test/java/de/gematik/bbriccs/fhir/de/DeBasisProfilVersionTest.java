@@ -23,12 +23,26 @@ package de.gematik.bbriccs.fhir.de;
 import static org.junit.jupiter.api.Assertions.*;
 
 import de.gematik.bbriccs.fhir.conf.ProfilesConfigurator;
+import de.gematik.bbriccs.toggle.FeatureToggle;
 import lombok.val;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junitpioneer.jupiter.SetSystemProperty;
 
 class DeBasisProfilVersionTest {
 
+  @BeforeEach
+  void refreshToggles() {
+    // system properties are changed at runtime by the tests
+    FeatureToggle.refresh();
+  }
+
+  @AfterAll
+  static void resetToggles() {
+    FeatureToggle.refresh();
+  }
+
   @Test
   void shouldGetDefault() {
     // prepares the virtual default configuration
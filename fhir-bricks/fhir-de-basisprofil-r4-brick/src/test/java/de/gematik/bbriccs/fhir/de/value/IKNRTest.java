@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.gematik.bbriccs.fhir.coding.exceptions.InvalidSystemException;
 import de.gematik.bbriccs.fhir.de.DeBasisProfilNamingSystem;
+import java.util.HashSet;
 import lombok.val;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
@@ -88,4 +89,28 @@ class IKNRTest {
     assertFalse(argeIknr.isValid());
     assertFalse(sidIknr.isValid());
   }
+
+  @Test
+  void shouldGenerateUniqueValidIknrs() {
+    val count = 100_000;
+    val values = new HashSet<String>();
+    IKNR.randomSidIknr(count, 42)
+        .forEach(
+            iknr -> {
+              assertTrue(iknr.isValid(), iknr.getValue());
+              assertEquals(DeBasisProfilNamingSystem.IKNR_SID, iknr.getSystem());
+              assertTrue(values.add(iknr.getValue()), iknr.getValue());
+            });
+    assertEquals(count, values.size());
+    assertEquals(
+        DeBasisProfilNamingSystem.IKNR,
+        IKNR.randomArgeIknr(1, 42).findFirst().orElseThrow().getSystem());
+  }
+
+  @Test
+  void shouldReproduceIknrsFromSeed() {
+    val first = IKNR.randomStringValues(100, 4711).toList();
+    assertEquals(first, IKNR.randomStringValues(100, 4711).toList());
+    assertThrows(IllegalArgumentException.class, () -> IKNR.randomStringValues(100_000_001L, 1));
+  }
 }
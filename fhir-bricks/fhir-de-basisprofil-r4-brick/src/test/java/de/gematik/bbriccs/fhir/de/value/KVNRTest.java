@@ -26,6 +26,7 @@ import de.gematik.bbriccs.fhir.coding.exceptions.InvalidSystemException;
 import de.gematik.bbriccs.fhir.coding.exceptions.MissingFieldException;
 import de.gematik.bbriccs.fhir.de.DeBasisProfilNamingSystem;
 import de.gematik.bbriccs.fhir.de.valueset.InsuranceTypeDe;
+import java.util.HashSet;
 import java.util.List;
 import lombok.val;
 import org.hl7.fhir.r4.model.Task;
@@ -243,4 +244,32 @@ class KVNRTest {
     val identifier = KVNR.random().asIdentifier();
     assertDoesNotThrow(() -> KVNR.extractFromOrThrow(Task.class, identifier));
   }
+
+  @Test
+  void shouldGenerateUniqueValidKvnrs() {
+    val count = 100_000;
+    val values = new HashSet<String>();
+    KVNR.randomGkv(count, 42)
+        .forEach(
+            kvnr -> {
+              assertTrue(kvnr.isValid(), kvnr.getValue());
+              assertTrue(kvnr.isGkv());
+              assertTrue(values.add(kvnr.getValue()), kvnr.getValue());
+            });
+    assertEquals(count, values.size());
+  }
+
+  @Test
+  void shouldReproduceKvnrsFromSeed() {
+    val first = KVNR.randomStringValues(100, 4711).toList();
+    assertEquals(first, KVNR.randomStringValues(100, 4711).toList());
+    assertNotEquals(first, KVNR.randomStringValues(100, 4712).toList());
+    assertTrue(KVNR.randomPkv(10, 4711).allMatch(KVNR::isPkv));
+  }
+
+  @Test
+  void shouldThrowOnExceedingKvnrSpace() {
+    assertThrows(IllegalArgumentException.class, () -> KVNR.randomStringValues(-1, 1));
+    assertThrows(IllegalArgumentException.class, () -> KVNR.randomStringValues(2_600_000_001L, 1));
+  }
 }
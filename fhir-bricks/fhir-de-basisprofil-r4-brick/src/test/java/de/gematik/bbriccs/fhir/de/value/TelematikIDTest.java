@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.gematik.bbriccs.fhir.coding.exceptions.InvalidSystemException;
 import de.gematik.bbriccs.fhir.de.DeBasisProfilNamingSystem;
+import java.util.HashSet;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
@@ -53,4 +54,20 @@ class TelematikIDTest {
 
     assertThrows(InvalidSystemException.class, () -> TelematikID.from(identifier));
   }
+
+  @Test
+  void shouldGenerateUniqueTelematikIds() {
+    val count = 100_000;
+    val values = new HashSet<String>();
+    TelematikID.random(count, 42)
+        .forEach(
+            tid -> {
+              assertTrue(tid.getValue().matches("^3-SMC-B-Testkarte-\\d{15}$"), tid.getValue());
+              assertTrue(values.add(tid.getValue()), tid.getValue());
+            });
+    assertEquals(count, values.size());
+    assertEquals(
+        TelematikID.random(10, 4711).map(TelematikID::getValue).toList(),
+        TelematikID.random(10, 4711).map(TelematikID::getValue).toList());
+  }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.de.value;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import lombok.val;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class UniqueIndexSequenceTest {
+
+  @ParameterizedTest(name = "[{index}]: permute the whole space of {0}")
+  @ValueSource(longs = {1, 2, 10, 97, 1_000, 1_024, 65_536})
+  void shouldPermuteWholeSpace(long size) {
+    for (var seed = 0; seed < 5; seed++) {
+      val indexes = UniqueIndexSequence.of(size, size, seed).boxed().collect(Collectors.toSet());
+      assertEquals(LongStream.range(0, size).boxed().collect(Collectors.toSet()), indexes);
+    }
+  }
+
+  @ParameterizedTest(name = "[{index}]: pad {0} to 8 digits")
+  @ValueSource(longs = {0, 7, 12_345_678, 99_999_999})
+  void shouldPadWithZeros(long value) {
+    val padded = UniqueIndexSequence.zeroPadded(value, 8);
+    assertEquals(8, padded.length());
+    assertEquals(value, Long.parseLong(padded));
+  }
+}
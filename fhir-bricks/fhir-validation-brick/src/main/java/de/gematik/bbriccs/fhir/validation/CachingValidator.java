@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+package de.gematik.bbriccs.fhir.validation;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.validation.ValidationResult;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.val;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+/**
+ * A {@link ValidatorFhir} which caches the {@link ValidationResult} of validated contents in a
+ * bounded LRU cache. The cache is keyed by a hash of the content, thus byte-identical contents are
+ * validated only once by the delegate. Concurrent validations of the same uncached content wait for
+ * the single validation in progress instead of validating the content again.
+ *
+ * <p><b>NOTE:</b> each call gets its own {@link ValidationResult} with an unmodifiable list of the
+ * cached messages. Resources given as {@link IBaseResource} are passed to the delegate without
+ * caching
+ */
+public class CachingValidator implements ValidatorFhir {
+
+  private final ValidatorFhir delegate;
+  @Getter private final int maximumSize;
+  private final Map<String, CompletableFuture<List<SingleValidationMessage>>> cache;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param delegate performing the actual validation
+   * @param maximumSize of cached results before evicting the least recently used ones
+   */
+  public CachingValidator(ValidatorFhir delegate, int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size of the validation cache must be positive");
+    }
+
+    this.delegate = delegate;
+    this.maximumSize = maximumSize;
+    this.cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(
+              Map.Entry<String, CompletableFuture<List<SingleValidationMessage>>> eldest) {
+            return this.size() > maximumSize;
+          }
+        };
+  }
+
+  @Override
+  public FhirContext getContext() {
+    return this.delegate.getContext();
+  }
+
+  @Override
+  public ValidationResult validate(String content) {
+    val nullSafeContent = Objects.requireNonNullElse(content, "");
+    val key = cacheKey(nullSafeContent);
+
+    val pending = new CompletableFuture<List<SingleValidationMessage>>();
+    final CompletableFuture<List<SingleValidationMessage>> cached;
+    synchronized (this.cache) {
+      cached = this.cache.putIfAbsent(key, pending);
+    }
+
+    if (cached != null) {
+      this.hits.increment();
+      return this.toValidationResult(join(cached));
+    }
+
+    this.misses.increment();
+    try {
+      val vr = this.delegate.validate(nullSafeContent);
+      pending.complete(List.copyOf(vr.getMessages()));
+    } catch (RuntimeException | Error e) {
+      // do not cache failures: waiting callers receive the failure, later ones validate again
+      synchronized (this.cache) {
+        this.cache.remove(key, pending);
+      }
+      pending.completeExceptionally(e);
+    }
+    return this.toValidationResult(join(pending));
+  }
+
+  @Override
+  public ValidationResult validate(IBaseResource resource) {
+    return this.delegate.validate(resource);
+  }
+
+  @Override
+  public void warmUp() {
+    this.delegate.warmUp();
+  }
+
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  public int getSize() {
+    synchronized (this.cache) {
+      return this.cache.size();
+    }
+  }
+
+  /** Remove all cached results and reset the hit and miss counters */
+  public void clear() {
+    synchronized (this.cache) {
+      this.cache.clear();
+    }
+    this.hits.reset();
+    this.misses.reset();
+  }
+
+  private ValidationResult toValidationResult(List<SingleValidationMessage> messages) {
+    return new ValidationResult(this.getContext(), messages);
+  }
+
+  private static List<SingleValidationMessage> join(
+      CompletableFuture<List<SingleValidationMessage>> result) {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  static String cacheKey(String content) {
+    return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+  }
+}
@@ -22,13 +22,22 @@ package de.gematik.bbriccs.fhir.validation;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.parser.IParser;
-import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.parser.LenientErrorHandler;
 import ca.uhn.fhir.validation.ValidationResult;
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.gematik.bbriccs.fhir.EncodingType;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
@@ -40,17 +49,80 @@ import org.hl7.fhir.r4.model.Bundle;
 @Slf4j
 public class MultiProfileValidator extends ValidatorFhirBase {
 
+  private static final int MAX_ROUTES = 10_000;
+
   private final FhirContext ctx;
   private final List<ProfiledValidator> profiledValidators;
   private final ProfiledValidator defaultProfileValidator;
 
-  private IParser xmlParser;
-  private IParser jsonParser;
+  /**
+   * Routes from canonical profile URLs to the validator which is responsible. Unsupported profile
+   * URLs are routed to the default validator. Routes are cached up to a fixed number, beyond that
+   * profile URLs are resolved again on each validation
+   */
+  private final Map<String, ProfiledValidator> routes;
+
+  /** Executor for validating the entries of unprofiled bundles */
+  private final Executor entryExecutor;
+
+  /** HAPI parsers are not thread-safe, thus each thread gets its own lazily created parsers */
+  private final ThreadLocal<IParser> xmlParser;
+
+  private final ThreadLocal<IParser> jsonParser;
 
   public MultiProfileValidator(List<ProfiledValidator> profiledValidators) {
-    this.ctx = FhirContext.forR4();
+    this(profiledValidators, defaultEntryExecutor());
+  }
+
+  /**
+   * The executor which is used by default for validating the entries of unprofiled bundles. This is
+   * a dedicated and bounded pool of daemon threads which is shared by all validators, thus
+   * validations do not compete with other tasks of the {@link java.util.concurrent.ForkJoinPool}
+   * common pool. Idle threads are released after a while.
+   *
+   * @return the shared default executor
+   */
+  public static Executor defaultEntryExecutor() {
+    return DefaultEntryExecutorHolder.INSTANCE;
+  }
+
+  /**
+   * Create a {@link MultiProfileValidator} sharing the {@link FhirContext} of the default validator
+   *
+   * @param profiledValidators the validators to choose from, where the first one is the default
+   * @param entryExecutor used to validate the entries of unprofiled bundles in parallel; use a
+   *     direct executor like {@code Runnable::run} to validate the entries sequentially
+   */
+  public MultiProfileValidator(List<ProfiledValidator> profiledValidators, Executor entryExecutor) {
+    this(profiledValidators.get(0).getContext(), profiledValidators, entryExecutor);
+  }
+
+  /**
+   * @param ctx the {@link FhirContext} for parsing unprofiled bundles, usually the same one which
+   *     is shared by the profiled validators
+   * @param profiledValidators the validators to choose from, where the first one is the default
+   * @param entryExecutor used to validate the entries of unprofiled bundles in parallel
+   */
+  public MultiProfileValidator(
+      FhirContext ctx, List<ProfiledValidator> profiledValidators, Executor entryExecutor) {
+    this.ctx = ctx;
+    this.xmlParser = ThreadLocal.withInitial(() -> createParser(ctx::newXmlParser));
+    this.jsonParser = ThreadLocal.withInitial(() -> createParser(ctx::newJsonParser));
     this.profiledValidators = profiledValidators;
     this.defaultProfileValidator = profiledValidators.get(0);
+    this.entryExecutor = entryExecutor;
+    this.routes = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Create a new {@link MultiProfileValidator} with the same validators but another executor for
+   * validating the entries of unprofiled bundles
+   *
+   * @param entryExecutor used to validate the entries of unprofiled bundles
+   * @return a new {@link MultiProfileValidator}
+   */
+  public MultiProfileValidator withEntryExecutor(Executor entryExecutor) {
+    return new MultiProfileValidator(this.ctx, this.profiledValidators, entryExecutor);
   }
 
   @Override
@@ -61,58 +133,86 @@ public class MultiProfileValidator extends ValidatorFhirBase {
   @Override
   public ValidationResult validate(String content) {
     val nullSafeContent = Objects.requireNonNullElse(content, "");
-    if (this.profileExtractor.isUnprofiledSearchSet(nullSafeContent)) {
+    val summary = this.profileExtractor.summarize(nullSafeContent);
+    if (summary.isUnprofiledSearchSet()) {
       val parser =
           EncodingType.guessFromContent(nullSafeContent)
               .choose(this::getXmlParser, this::getJsonParser);
       val bundleResource = parser.parseResource(Bundle.class, nullSafeContent);
       return validateUnprofiledBundle(bundleResource);
     } else {
-      val p = chooseProfileValidator(() -> this.profileExtractor.extractProfile(nullSafeContent));
+      val p = chooseProfileValidator(summary::getProfile);
       return p.validate(nullSafeContent);
     }
   }
 
+  /**
+   * Perform a validation on the given {@link IBaseResource} by choosing the profiled validator from
+   * the meta.profile of the resource and handing the resource directly to it. This avoids encoding
+   * the resource just for extracting the profile from the encoded content again.
+   *
+   * <p><b>NOTE:</b> the chosen {@link ProfiledValidator} still encodes the resource once because
+   * the HAPI validation on {@link IBaseResource} overrides the ids of bundle entries
+   *
+   * @param resource to be validated
+   * @return the {@link ValidationResult}
+   */
   @Override
   public ValidationResult validate(IBaseResource resource) {
     if (!this.hasProfile(resource) && this.isCollectionBundle(resource)) {
       return validateUnprofiledBundle((Bundle) resource);
     } else {
-      val parser = this.getXmlParser();
-      val content = parser.encodeResourceToString(resource);
-      return this.validate(content);
+      return chooseProfileValidator(resource).validate(resource);
     }
   }
 
+  /** Warm up all profiled validators in parallel on the entry executor */
+  @Override
+  public void warmUp() {
+    val warmUps =
+        this.profiledValidators.stream()
+            .map(pv -> CompletableFuture.runAsync(pv::warmUp, this.entryExecutor))
+            .toList();
+    warmUps.forEach(MultiProfileValidator::join);
+  }
+
   /**
    * Bundles which do not have a profile are usually a searchset or collection and thus might
    * contain entry resources coming from different profiles. Validating these directly with a single
    * validator will result errors because of validating against wrong profiles.
    *
    * <p>Therefore the entry resources of such a bundle must be validated separately, each with it's
-   * own choice of a profileset to validate against
+   * own choice of a profileset to validate against. The entries are validated in parallel on the
+   * entry executor while the messages are merged in the order of the entries
    *
    * @param bundle to be validated
    * @return a {@link ValidationResult} for the entry resources of the bundle
    */
   private ValidationResult validateUnprofiledBundle(Bundle bundle) {
-    val validationMessages = new LinkedList<SingleValidationMessage>();
+    val entryValidations =
+        bundle.getEntry().stream()
+            .map(Bundle.BundleEntryComponent::getResource)
+            .map(
+                r ->
+                    CompletableFuture.supplyAsync(
+                        () -> chooseProfileValidator(r).validate(r), this.entryExecutor))
+            .toList();
 
-    bundle.getEntry().stream()
-        .map(Bundle.BundleEntryComponent::getResource)
-        .forEach(
-            r -> {
-              val validator = chooseProfileValidator(r);
-              val vr = validator.validate(r);
-              validationMessages.addAll(vr.getMessages());
-            });
+    val validationMessages =
+        entryValidations.stream()
+            .map(MultiProfileValidator::join)
+            .flatMap(vr -> vr.getMessages().stream())
+            .toList();
 
     return new ValidationResult(this.getContext(), validationMessages);
   }
 
   private ProfiledValidator chooseProfileValidator(IBaseResource resource) {
     val profile =
-        resource.getMeta().getProfile().stream().map(IPrimitiveType::getValue).findFirst();
+        resource.getMeta().getProfile().stream()
+            .map(IPrimitiveType::getValue)
+            .filter(p -> !Strings.isNullOrEmpty(p))
+            .findFirst();
     return chooseProfileValidator(() -> profile);
   }
 
@@ -137,34 +237,94 @@ public class MultiProfileValidator extends ValidatorFhirBase {
   }
 
   private ProfiledValidator chooseProfileValidator(String profileUrl) {
+    val route = this.routes.get(profileUrl);
+    if (route != null) {
+      return route;
+    }
+
+    // the first validator supporting a profile takes precedence
     val validator =
         this.profiledValidators.stream().filter(p -> p.doesSupport(profileUrl)).findFirst();
+    val chosenValidator = validator.orElse(this.defaultProfileValidator);
 
-    if (validator.isPresent()) {
-      log.trace("Use Validator Configuration ''{}'' for {}", validator.get().getId(), profileUrl);
-    } else {
-      log.warn(
-          "No supporting Validator found for {}, use Validator Configuration '{}' as default",
-          profileUrl,
-          this.defaultProfileValidator.getId());
+    // log only on the first resolution of a route, concurrent resolutions are not logged again
+    if (this.cacheRoute(profileUrl, chosenValidator)) {
+      if (validator.isPresent()) {
+        log.trace("Use Validator Configuration ''{}'' for {}", chosenValidator.getId(), profileUrl);
+      } else {
+        log.warn(
+            "No supporting Validator found for {}, use Validator Configuration '{}' as default",
+            profileUrl,
+            chosenValidator.getId());
+      }
     }
+    return chosenValidator;
+  }
 
-    return validator.orElse(this.defaultProfileValidator);
+  /**
+   * Cache the route for the given profile URL as long as the routes are not exhausted
+   *
+   * @return true if the route was resolved for the first time or could not be cached at all
+   */
+  private boolean cacheRoute(String profileUrl, ProfiledValidator validator) {
+    if (this.routes.size() >= MAX_ROUTES) {
+      return true;
+    }
+    return this.routes.putIfAbsent(profileUrl, validator) == null;
   }
 
-  private IParser getXmlParser() {
-    if (this.xmlParser == null) {
-      this.xmlParser =
-          this.getContext().newXmlParser().setOverrideResourceIdWithBundleEntryFullUrl(false);
+  /**
+   * Wait for the given future and rethrow the original exception of a failed validation like a
+   * sequential validation would do instead of wrapping it in a {@link CompletionException}
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      } else if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
     }
-    return this.xmlParser;
+  }
+
+  /**
+   * The parsers of this validator must not depend on the error handler of the shared {@link
+   * FhirContext}. Unprofiled bundles are parsed leniently as their entries are validated afterward
+   * anyway
+   */
+  private static IParser createParser(Supplier<IParser> parserSupplier) {
+    return parserSupplier
+        .get()
+        .setOverrideResourceIdWithBundleEntryFullUrl(false)
+        .setParserErrorHandler(new LenientErrorHandler());
+  }
+
+  private IParser getXmlParser() {
+    return this.xmlParser.get();
   }
 
   public IParser getJsonParser() {
-    if (this.jsonParser == null) {
-      this.jsonParser =
-          this.getContext().newJsonParser().setOverrideResourceIdWithBundleEntryFullUrl(false);
+    return this.jsonParser.get();
+  }
+
+  private static class DefaultEntryExecutorHolder {
+    private static final Executor INSTANCE = createExecutor();
+
+    private static Executor createExecutor() {
+      val threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+      val threadFactory =
+          new ThreadFactoryBuilder()
+              .setNameFormat("bbriccs-entry-validation-%d")
+              .setDaemon(true)
+              .build();
+      val executor =
+          new ThreadPoolExecutor(
+              threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
     }
-    return this.jsonParser;
   }
 }
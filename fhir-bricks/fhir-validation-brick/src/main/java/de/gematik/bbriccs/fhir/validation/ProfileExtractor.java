@@ -22,37 +22,55 @@ package de.gematik.bbriccs.fhir.validation;
 
 import static java.text.MessageFormat.format;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import de.gematik.bbriccs.fhir.EncodingType;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
-import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.r4.model.Bundle.BundleType;
 
+/**
+ * Extracts the root resource type, the profile and the bundle type from raw FHIR content in a
+ * single streaming pass. In contrast to building a whole tree of the content, reading stops as soon
+ * as all required informations are found
+ */
 @Slf4j
 public class ProfileExtractor {
 
+  private static final String RESOURCE_TYPE_LITERAL = "resourceType";
+  private static final String BUNDLE_LITERAL = "Bundle";
   private static final String PROFILE_LITERAL = "profile";
   private static final String META_LITERAL = "meta";
   private static final String TYPE_LITERAL = "type";
   private static final String ENTRY_LITERAL = "entry";
   private static final String VALUE_LITERAL = "value";
 
-  private ObjectMapper xmlMapper;
-  private ObjectMapper jsonMapper;
+  // both factories are thread-safe once configured
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final XMLInputFactory XML_FACTORY = createXmlInputFactory();
 
   public Optional<String> extractProfile(String content) {
-    val root = encodeContent(content);
-    return root.flatMap(r -> extractProfileValue(r, content));
+    return this.summarize(content)
+        .getProfile()
+        .or(
+            () -> {
+              log.info(
+                  "Given content does not contain a profile: {}",
+                  shortenContentForLogging(content));
+              return Optional.empty();
+            });
   }
 
   /**
@@ -64,144 +82,288 @@ public class ProfileExtractor {
    * @return true if the content is a searchset without an explicit profile and false otherwise
    */
   public boolean isUnprofiledSearchSet(String content) {
-    return encodeContent(content)
-        .filter(root -> extractProfileFromRoot(root).isEmpty())
-        .map(root -> isOfType(root, BundleType.SEARCHSET, BundleType.COLLECTION))
-        .orElse(false);
+    return this.summarize(content).isUnprofiledSearchSet();
   }
 
-  private Optional<JsonNode> encodeContent(String content) {
+  /**
+   * Read the root resource type, the profile and the bundle type of the given content in a single
+   * pass. Whenever both the profile and the bundle type are required, prefer this method over
+   * calling {@link #extractProfile(String)} and {@link #isUnprofiledSearchSet(String)} separately
+   *
+   * @param content to be read
+   * @return the {@link ResourceSummary} which is empty if the content cannot be read
+   */
+  public ResourceSummary summarize(String content) {
     val encoding = EncodingType.guessFromContent(content);
-    val mapper = encoding.choose(this::getXmlMapper, this::getJsonMapper);
     try {
-      val root = mapper.readTree(content);
-      return Optional.of(root);
-    } catch (JsonProcessingException jpe) {
+      val collector = new SummaryCollector();
+      if (encoding == EncodingType.XML) {
+        readXml(content, collector);
+      } else {
+        readJson(content, collector);
+      }
+      return collector.toSummary();
+    } catch (IOException | XMLStreamException e) {
       log.warn("Given content cannot be parsed as JSON/XML: {}", shortenContentForLogging(content));
-      return Optional.empty();
+      return ResourceSummary.empty();
     }
   }
 
   /**
-   * This method will take the root node and extract, depending on the concrete type, the next
-   * profile-node
+   * Read only the root resource type of the given content. Reading stops right after the root
+   * element for XML and after the resourceType-field for JSON, thus this is much cheaper than
+   * decoding the content
    *
-   * @param root node
-   * @return the nearest profile-node from root or empty if no profile-node was found
+   * @param content to be read
+   * @return the root resource type or empty if the content cannot be read
    */
-  private Optional<JsonNode> extractProfileNode(JsonNode root) {
-    if (isOfType(root, BundleType.COLLECTION)) {
-      return extractProfileFromCollection(root);
-    } else {
-      return extractProfileFromRoot(root);
+  public Optional<String> extractResourceType(String content) {
+    val encoding = EncodingType.guessFromContent(content);
+    try {
+      return Optional.ofNullable(
+          encoding == EncodingType.XML ? readXmlRootName(content) : readJsonResourceType(content));
+    } catch (IOException | XMLStreamException e) {
+      log.warn("Given content cannot be parsed as JSON/XML: {}", shortenContentForLogging(content));
+      return Optional.empty();
     }
   }
 
-  /**
-   * This method will extract the profile tag depending on the type of the resource, and if a
-   * profile tag was found the concrete string-value will be extracted. In some cases, resources
-   * might contain multiple profiles: this method will take always the first profile in such cases
-   *
-   * @param root node
-   * @param content representing the raw resource
-   * @return the found profile-string or empty of no profile was found
-   */
-  private Optional<String> extractProfileValue(JsonNode root, String content) {
-    val profileNode = extractProfileNode(root);
-
-    // 1. on array take the first element, otherwise take the value by name
-    // 2. map the profile-node to string value
-    // 4. filter out empty strings as these won't ever give any benefit on choosing a validator
-    // 5. log info about missing profile
-    return profileNode
-        .map(profile -> profile.isArray() ? profile.get(0) : profile.get(VALUE_LITERAL))
-        .map(JsonNode::asText)
-        .filter(Predicate.not(String::isEmpty))
-        .or(
-            () -> {
-              log.info(
-                  "Given content does not contain a profile: {}",
-                  shortenContentForLogging(content));
-              return Optional.empty();
-            });
+  @Nullable
+  private static String readJsonResourceType(String content) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        val field = parser.currentName();
+        val token = parser.nextToken();
+        if (RESOURCE_TYPE_LITERAL.equals(field)) {
+          return textOf(parser, token);
+        }
+        parser.skipChildren();
+      }
+      return null;
+    }
+  }
+
+  @Nullable
+  private static String readXmlRootName(String content) throws XMLStreamException {
+    val reader = XML_FACTORY.createXMLStreamReader(new StringReader(content));
+    try {
+      return reader.nextTag() == XMLStreamConstants.START_ELEMENT ? reader.getLocalName() : null;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void readJson(String content, SummaryCollector collector) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return;
+      }
+
+      while (!collector.isComplete() && parser.nextToken() == JsonToken.FIELD_NAME) {
+        val field = parser.currentName();
+        val token = parser.nextToken();
+        switch (field) {
+          case RESOURCE_TYPE_LITERAL -> collector.resourceType = textOf(parser, token);
+          case META_LITERAL -> collector.rootProfile = readJsonMetaProfile(parser);
+          case TYPE_LITERAL -> collector.type = textOf(parser, token);
+          case ENTRY_LITERAL -> readJsonEntries(parser, collector);
+          default -> parser.skipChildren();
+        }
+      }
+    }
   }
 
   /**
-   * Special case for collection bundles: if no profile is found on root, extract the profile-node
-   * from the first entry which has a non-empty profile
+   * Read the first profile from the meta-object the parser currently points to and consume the
+   * whole meta-object
    *
-   * @param root node
-   * @return the JsonNode of the first found profile within the whole collection or empty if no
-   *     profiles found
+   * @param parser pointing to the start of the meta-object
+   * @return the first profile or null if the meta-object does not contain a non-empty profile
    */
-  private Optional<JsonNode> extractProfileFromCollection(JsonNode root) {
-    return extractProfileFromRoot(root)
-        .or(
-            () ->
-                root.findValues(ENTRY_LITERAL).stream()
-                    .map(entry -> entry.findValue(META_LITERAL))
-                    .filter(this::filterEmptyProfiles)
-                    .map(meta -> meta.findValue(PROFILE_LITERAL))
-                    .findFirst());
+  @Nullable
+  private static String readJsonMetaProfile(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+
+    String profile = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      val field = parser.currentName();
+      val token = parser.nextToken();
+      if (PROFILE_LITERAL.equals(field) && token == JsonToken.START_ARRAY) {
+        // take the first element and skip all others
+        val first = parser.nextToken();
+        if (first == JsonToken.VALUE_STRING) {
+          profile = parser.getText();
+        }
+        while (parser.currentToken() != JsonToken.END_ARRAY) {
+          parser.skipChildren();
+          parser.nextToken();
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return emptyToNull(profile);
   }
 
   /**
-   * This is the most common way which is applied to most of the resources (exception collections).
-   * In this case, the profile is strictly extracted from root.meta.profile without deep-diving into
-   * child nodes
-   *
-   * @param root node
-   * @return the JsonNode of the profile in the root node or empty if the root node does not have a
-   *     profile
+   * Read the entries of a bundle and take the profile of the first entry which has a profile. All
+   * other entries are skipped without looking into them
    */
-  private Optional<JsonNode> extractProfileFromRoot(JsonNode root) {
-    val meta = root.get(META_LITERAL);
-    return Optional.ofNullable(meta)
-        .filter(this::filterEmptyProfiles)
-        .flatMap(m -> Optional.ofNullable(m.get(PROFILE_LITERAL)));
+  private static void readJsonEntries(JsonParser parser, SummaryCollector collector)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY || !collector.requiresEntryProfile()) {
+      parser.skipChildren();
+      return;
+    }
+
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (collector.entryProfile == null && parser.currentToken() == JsonToken.START_OBJECT) {
+        collector.entryProfile = emptyToNull(findJsonMetaProfile(parser));
+      } else {
+        parser.skipChildren();
+      }
+    }
   }
 
   /**
-   * filter all the found meta-tags for such tags which contain a non-empty profile value
+   * Search depth-first for the first meta-object within the current object and consume the whole
+   * current object
    *
-   * @param meta node to be filtered
-   * @return true if the profile contains a value and false otherwise
+   * @param parser pointing to the start of an object
+   * @return the profile of the first meta-object, an empty string if this meta-object has no
+   *     profile or null if no meta-object was found at all
    */
-  private boolean filterEmptyProfiles(JsonNode meta) {
-    var profile = meta.findValue(PROFILE_LITERAL);
-    if (profile == null) return false;
-    profile = profile.isArray() ? profile.get(0) : profile.get(VALUE_LITERAL);
-    if (profile == null) return false;
-    return !profile.asText("").isEmpty();
+  @Nullable
+  private static String findJsonMetaProfile(JsonParser parser) throws IOException {
+    String profile = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      val field = parser.currentName();
+      val token = parser.nextToken();
+      if (profile != null) {
+        parser.skipChildren();
+      } else if (META_LITERAL.equals(field)) {
+        profile = Objects.requireNonNullElse(readJsonMetaProfile(parser), "");
+      } else if (token == JsonToken.START_OBJECT) {
+        profile = findJsonMetaProfile(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return profile;
   }
 
-  private boolean isOfType(JsonNode root, BundleType... types) {
-    val extractedType = extractBundleType(root);
-    return Arrays.asList(types).contains(extractedType);
+  @Nullable
+  private static String textOf(JsonParser parser, JsonToken token) throws IOException {
+    if (token == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  private static void readXml(String content, SummaryCollector collector)
+      throws XMLStreamException {
+    val reader = XML_FACTORY.createXMLStreamReader(new StringReader(content));
+    try {
+      if (reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+        return;
+      }
+      collector.resourceType = reader.getLocalName();
+
+      while (!collector.isComplete() && reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+        switch (reader.getLocalName()) {
+          case META_LITERAL -> collector.rootProfile = readXmlMetaProfile(reader);
+          case TYPE_LITERAL -> {
+            collector.type = reader.getAttributeValue(null, VALUE_LITERAL);
+            skipXmlElement(reader);
+          }
+          case ENTRY_LITERAL -> readXmlEntry(reader, collector);
+          default -> skipXmlElement(reader);
+        }
+      }
+    } finally {
+      reader.close();
+    }
   }
 
   /**
-   * Extracts the type of bundle resource
+   * Read the first profile from the meta-element the reader currently points to and consume the
+   * whole meta-element
    *
-   * @param root node
-   * @return the BundleType which might be also NULL-Type from {@link BundleType}
+   * @param reader pointing to the start of the meta-element
+   * @return the first profile or null if the meta-element does not contain a non-empty profile
    */
-  @Nonnull
-  @SuppressWarnings("java:S2637") // null is properly handled via BundleType.NULL here!
-  private BundleType extractBundleType(JsonNode root) {
-    val typeNode = root.get(TYPE_LITERAL);
+  @Nullable
+  private static String readXmlMetaProfile(XMLStreamReader reader) throws XMLStreamException {
+    String profile = null;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (profile == null && PROFILE_LITERAL.equals(reader.getLocalName())) {
+        profile = Optional.ofNullable(reader.getAttributeValue(null, VALUE_LITERAL)).orElse("");
+      }
+      skipXmlElement(reader);
+    }
+    return emptyToNull(profile);
+  }
 
-    try {
-      return Optional.ofNullable(typeNode)
-          .map(
-              node ->
-                  node.getNodeType().equals(JsonNodeType.OBJECT) ? node.get(VALUE_LITERAL) : node)
-          .map(node -> BundleType.fromCode(node.asText()))
-          .orElse(BundleType.NULL);
-    } catch (FHIRException fe) {
-      log.warn("Unable to extract FHIR BundleType from type-node {}", typeNode);
-      return BundleType.NULL;
+  /**
+   * Search depth-first for the first meta-element within the current entry and consume the whole
+   * entry. If the profile of a previous entry was already found, the entry is skipped
+   */
+  private static void readXmlEntry(XMLStreamReader reader, SummaryCollector collector)
+      throws XMLStreamException {
+    if (collector.entryProfile != null || !collector.requiresEntryProfile()) {
+      skipXmlElement(reader);
+      return;
     }
+
+    var depth = 1;
+    var metaFound = false;
+    while (depth > 0) {
+      val event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        if (!metaFound && META_LITERAL.equals(reader.getLocalName())) {
+          // the first meta-element of an entry decides, the rest of the entry is skipped
+          collector.entryProfile = readXmlMetaProfile(reader);
+          metaFound = true;
+        } else {
+          depth++;
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /** Consume the element the reader currently points to including all its children */
+  private static void skipXmlElement(XMLStreamReader reader) throws XMLStreamException {
+    var depth = 1;
+    while (depth > 0) {
+      val event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  @Nullable
+  private static String emptyToNull(@Nullable String value) {
+    return Optional.ofNullable(value).filter(Predicate.not(String::isEmpty)).orElse(null);
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    val factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
   }
 
   /**
@@ -221,17 +383,50 @@ public class ProfileExtractor {
     }
   }
 
-  private ObjectMapper getXmlMapper() {
-    if (this.xmlMapper == null) {
-      this.xmlMapper = new XmlMapper();
+  /** Mutable state of a single pass which is finally condensed into a {@link ResourceSummary} */
+  private static class SummaryCollector {
+    @Nullable private String resourceType;
+    @Nullable private String rootProfile;
+    @Nullable private String entryProfile;
+    @Nullable private String type;
+
+    /**
+     * The entries are only of interest for collection bundles without a profile on root. As long as
+     * the type is not known yet, the entries need to be read
+     */
+    private boolean requiresEntryProfile() {
+      return this.rootProfile == null
+          && (this.type == null || BundleType.COLLECTION.toCode().equals(this.type));
     }
-    return this.xmlMapper;
-  }
 
-  private ObjectMapper getJsonMapper() {
-    if (this.jsonMapper == null) {
-      this.jsonMapper = new JsonMapper();
+    /**
+     * Reading can stop as soon as the resource type and the root profile are known, and for bundles
+     * additionally the bundle type
+     */
+    private boolean isComplete() {
+      return this.resourceType != null
+          && this.rootProfile != null
+          && (!BUNDLE_LITERAL.equals(this.resourceType) || this.type != null);
+    }
+
+    private ResourceSummary toSummary() {
+      return new ResourceSummary(
+          this.resourceType, this.rootProfile, this.entryProfile, this.toBundleType());
+    }
+
+    @SuppressWarnings("java:S2637") // null is properly handled via BundleType.NULL here!
+    private BundleType toBundleType() {
+      if (this.type == null
+          || (this.resourceType != null && !BUNDLE_LITERAL.equals(this.resourceType))) {
+        return BundleType.NULL;
+      }
+
+      try {
+        return Optional.ofNullable(BundleType.fromCode(this.type)).orElse(BundleType.NULL);
+      } catch (FHIRException fe) {
+        log.warn("Unable to extract FHIR BundleType from type {}", this.type);
+        return BundleType.NULL;
+      }
     }
-    return this.jsonMapper;
   }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ResourceInfo;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Lists the resources of a FHIR profile package without scanning the whole classpath. The resources
+ * are taken from the <code>.index.json</code> of the package if available, otherwise the
+ * directories and jar files containing the package are listed directly. Only if the package is
+ * located somewhere else or cannot be found as a resource at all (e.g. jar files without directory
+ * entries), the whole classpath is scanned as a fallback.
+ *
+ * <p>Regardless of the source, only the files located directly within the package are listed just
+ * like the <code>.index.json</code> does. Subfolders like <code>package/examples</code> do not
+ * contain the conformance resources of the package and are skipped.
+ */
+@Slf4j
+class ProfilePackageScanner {
+
+  static final String PACKAGE_INDEX = ".index.json";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final ClassLoader classLoader;
+
+  ProfilePackageScanner(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * List the resource names of the given profile package
+   *
+   * @param packageName the resource path of the package e.g. fhir/profiles/name-version/package
+   * @return the sorted resource names of all files within the package
+   */
+  @SneakyThrows
+  List<String> scan(String packageName) {
+    val fromIndex = this.scanIndex(packageName);
+    if (fromIndex.isPresent()) {
+      return fromIndex.get();
+    }
+
+    val resourceNames = new TreeSet<String>();
+    val packageUrls = this.classLoader.getResources(packageName);
+    if (!packageUrls.hasMoreElements()) {
+      log.info("Unable to find {} directly, fallback to scanning the classpath", packageName);
+      return this.scanClassPath(packageName);
+    }
+
+    while (packageUrls.hasMoreElements()) {
+      val packageUrl = packageUrls.nextElement();
+      if (!this.listPackage(packageUrl, packageName, resourceNames)) {
+        log.info("Unable to list {} directly, fallback to scanning the classpath", packageUrl);
+        return this.scanClassPath(packageName);
+      }
+    }
+
+    return List.copyOf(resourceNames);
+  }
+
+  private Optional<List<String>> scanIndex(String packageName) throws IOException {
+    val indexUrl = this.classLoader.getResource(packageName + "/" + PACKAGE_INDEX);
+    if (indexUrl == null) {
+      return Optional.empty();
+    }
+
+    log.trace("Read profile package {} from {}", packageName, PACKAGE_INDEX);
+    val resourceNames = new TreeSet<String>();
+    try (val is = indexUrl.openStream();
+        val parser = JSON_FACTORY.createParser(is)) {
+      // read all "filename" fields of the files-array
+      while (parser.nextToken() != null) {
+        if (parser.currentToken() == JsonToken.FIELD_NAME
+            && "filename".equals(parser.currentName())
+            && parser.nextToken() == JsonToken.VALUE_STRING) {
+          val resourceName = packageName + "/" + parser.getText();
+          if (isWithinPackage(packageName, resourceName)) {
+            resourceNames.add(resourceName);
+          }
+        }
+      }
+    }
+
+    return Optional.of(List.copyOf(resourceNames));
+  }
+
+  private boolean listPackage(URL packageUrl, String packageName, Collection<String> resourceNames)
+      throws IOException, URISyntaxException {
+    return switch (packageUrl.getProtocol()) {
+      case "file" -> {
+        listDirectory(Path.of(packageUrl.toURI()), packageName, resourceNames);
+        yield true;
+      }
+      case "jar" -> {
+        listJar(packageUrl, packageName, resourceNames);
+        yield true;
+      }
+      default -> false;
+    };
+  }
+
+  private static void listDirectory(
+      Path packageDirectory, String packageName, Collection<String> resourceNames)
+      throws IOException {
+    try (val files = Files.list(packageDirectory)) {
+      files
+          .filter(Files::isRegularFile)
+          .map(file -> packageName + "/" + file.getFileName())
+          .forEach(resourceNames::add);
+    }
+  }
+
+  private static void listJar(URL packageUrl, String packageName, Collection<String> resourceNames)
+      throws IOException, URISyntaxException {
+    val connection = (JarURLConnection) packageUrl.openConnection();
+    val jarPath = Path.of(connection.getJarFileURL().toURI());
+    try (val jarFile = new JarFile(jarPath.toFile())) {
+      jarFile.stream()
+          .filter(entry -> !entry.isDirectory())
+          .map(ZipEntry::getName)
+          .filter(name -> isWithinPackage(packageName, name))
+          .forEach(resourceNames::add);
+    }
+  }
+
+  private List<String> scanClassPath(String packageName) throws IOException {
+    Set<String> resourceNames = new TreeSet<>();
+    ClassPath.from(this.classLoader).getResources().stream()
+        .map(ResourceInfo::getResourceName)
+        .filter(resourceName -> isWithinPackage(packageName, resourceName))
+        .forEach(resourceNames::add);
+    return List.copyOf(resourceNames);
+  }
+
+  /**
+   * Check if the given resource is located directly within the package and not in a subfolder
+   *
+   * @param packageName the resource path of the package
+   * @param resourceName to be checked
+   * @return true if the resource is a file of the package itself
+   */
+  static boolean isWithinPackage(String packageName, String resourceName) {
+    val prefixLength = packageName.length() + 1;
+    return resourceName.length() > prefixLength
+        && resourceName.startsWith(packageName)
+        && resourceName.charAt(packageName.length()) == '/'
+        && resourceName.indexOf('/', prefixLength) < 0;
+  }
+
+  /**
+   * Check if the given resource name is the package index file
+   *
+   * @param resourceName to be checked
+   * @return true if the resource name points to the index of the package
+   */
+  static boolean isPackageIndex(String resourceName) {
+    return resourceName.endsWith("/" + PACKAGE_INDEX);
+  }
+}
@@ -22,29 +22,44 @@ package de.gematik.bbriccs.fhir.validation;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.IValidationSupport;
-import ca.uhn.fhir.parser.StrictErrorHandler;
 import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.ValidationResult;
 import de.gematik.bbriccs.fhir.validation.support.ErrorMessageFilter;
+import de.gematik.bbriccs.fhir.validation.support.ProfileValidationSupport;
+import de.gematik.bbriccs.fhir.validation.support.SnapshotGenerator;
+import de.gematik.bbriccs.fhir.validation.support.SynchronizedSnapshotValidationSupport;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import javax.annotation.Nullable;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
-import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
+import org.hl7.fhir.r4.model.StructureDefinition;
 
 @Slf4j
 public class ProfiledValidator extends ValidatorFhirBase {
 
+  private static final String WARM_UP_CONTENT = "<Parameters xmlns=\"http://hl7.org/fhir\"/>";
+
   @Getter private final String id;
   private final FhirContext ctx;
   private final FhirValidator validator;
-  private final List<IValidationSupport> customProfileSupports;
+
+  /** canonical URLs resolved by the indexed {@link ProfileValidationSupport}s */
+  private final Set<String> supportedCanonicals;
+
+  /** all other supports which need to be asked on each lookup */
+  private final List<IValidationSupport> otherProfileSupports;
+
+  private final List<ProfileValidationSupport> profileSupports;
+  private final ValidationSupportChain validationSupportChain;
+  private final SynchronizedSnapshotValidationSupport snapshotSupport;
 
   public ProfiledValidator(String id, List<IValidationSupport> customProfileSupports) {
     this(id, customProfileSupports, null);
@@ -65,23 +80,34 @@ public class ProfiledValidator extends ValidatorFhirBase {
     this.ctx = ctx;
     this.id = id;
     this.validator = ctx.newValidator();
-    this.customProfileSupports = customProfileSupports;
 
-    ctx.setParserErrorHandler(new StrictErrorHandler());
+    this.supportedCanonicals = new HashSet<>();
+    this.otherProfileSupports = new ArrayList<>();
+    this.profileSupports = new ArrayList<>();
+    customProfileSupports.forEach(
+        cps -> {
+          if (cps instanceof ProfileValidationSupport pvs) {
+            this.profileSupports.add(pvs);
+            this.supportedCanonicals.addAll(pvs.getStructureDefinitionCanonicals());
+          } else {
+            this.otherProfileSupports.add(cps);
+          }
+        });
 
     // create support chain for validation
     // create support validators for custom profiles
     val validationSupports = new ArrayList<>(customProfileSupports);
     validationSupports.add(ctx.getValidationSupport());
     validationSupports.add(new InMemoryTerminologyServerValidationSupport(ctx));
-    validationSupports.add(new SnapshotGeneratingValidationSupport(ctx));
+    this.snapshotSupport = new SynchronizedSnapshotValidationSupport(ctx);
+    validationSupports.add(this.snapshotSupport);
 
     // configure the HAPI FhirParser
     val fiv = new FhirInstanceValidator(ctx);
-    val validationSupportChain =
+    this.validationSupportChain =
         new ValidationSupportChain(validationSupports.toArray(IValidationSupport[]::new));
 
-    fiv.setValidationSupport(validationSupportChain);
+    fiv.setValidationSupport(this.validationSupportChain);
     fiv.setErrorForUnknownProfiles(true);
     fiv.setNoExtensibleWarnings(true);
     fiv.setAnyExtensionsAllowed(false);
@@ -101,17 +127,49 @@ public class ProfiledValidator extends ValidatorFhirBase {
     return this.validateSafely(() -> this.validator.validateWithResult(nullSafeContent));
   }
 
-  protected boolean doesSupport(String url) {
-    var ret = false;
-
-    for (val cps : this.customProfileSupports) {
-      val sdef = cps.fetchStructureDefinition(url);
-      if (sdef != null) {
-        ret = true;
-        break;
-      }
+  /**
+   * Generate the missing snapshots of all StructureDefinitions from the profile packages and run a
+   * first validation to initialise the HAPI validator
+   */
+  @Override
+  public void warmUp() {
+    val start = System.currentTimeMillis();
+    val structureDefinitions =
+        this.profileSupports.stream()
+            .flatMap(pvs -> pvs.<StructureDefinition>fetchAllStructureDefinitions().stream())
+            .toList();
+
+    // share the lock with snapshots generated on demand while validating
+    int generated;
+    synchronized (this.snapshotSupport) {
+      val snapshotGenerator = new SnapshotGenerator(this.validationSupportChain);
+      generated = snapshotGenerator.generateSnapshots(structureDefinitions);
     }
 
-    return ret;
+    this.validator.validateWithResult(WARM_UP_CONTENT);
+    log.info(
+        "Warmed up Validator {} with {} generated snapshots in {}ms",
+        this.id,
+        generated,
+        System.currentTimeMillis() - start);
+  }
+
+  protected boolean doesSupport(String url) {
+    if (url == null) return false;
+
+    return this.supportedCanonicals.contains(url)
+        || this.isSupportedByNormalizedVersion(url)
+        || this.otherProfileSupports.stream()
+            .anyMatch(cps -> cps.fetchStructureDefinition(url) != null);
+  }
+
+  /**
+   * Versioned URLs which are not indexed literally (e.g. with an empty version as in <code>url|
+   * </code>) are resolved by the profile supports themselves, thus the support does not disagree
+   * with the fetching of the StructureDefinition
+   */
+  private boolean isSupportedByNormalizedVersion(String url) {
+    return url.indexOf('|') >= 0
+        && this.profileSupports.stream().anyMatch(pvs -> pvs.fetchStructureDefinition(url) != null);
   }
 }
@@ -50,8 +50,10 @@ public class ReferenzValidator extends ValidatorFhirBase {
 
   private final ValidatorFhir unprofiledValidator;
 
-  private IParser xmlParser;
-  private IParser jsonParser;
+  /** HAPI parsers are not thread-safe, thus each thread gets its own lazily created parsers */
+  private final ThreadLocal<IParser> xmlParser;
+
+  private final ThreadLocal<IParser> jsonParser;
 
   public ReferenzValidator(
       FhirContext ctx, ValidationModule validationModule, ValidationOptions options) {
@@ -59,6 +61,12 @@ public class ReferenzValidator extends ValidatorFhirBase {
     this.validationModule = validationModule;
     this.options = options;
     this.unprofiledValidator = new NonProfiledValidator(this.context);
+    this.xmlParser =
+        ThreadLocal.withInitial(
+            () -> ctx.newXmlParser().setOverrideResourceIdWithBundleEntryFullUrl(false));
+    this.jsonParser =
+        ThreadLocal.withInitial(
+            () -> ctx.newJsonParser().setOverrideResourceIdWithBundleEntryFullUrl(false));
   }
 
   @Override
@@ -69,8 +77,9 @@ public class ReferenzValidator extends ValidatorFhirBase {
   @Override
   public ValidationResult validate(String content) {
     val nullSafeContent = Objects.requireNonNullElse(content, "");
+    val summary = this.profileExtractor.summarize(nullSafeContent);
 
-    if (this.profileExtractor.isUnprofiledSearchSet(content)) {
+    if (summary.isUnprofiledSearchSet()) {
       log.warn(
           "Detected unprofiled Bundle of type SEARCHSET or COLLECTION - validating entries"
               + " separately");
@@ -79,7 +88,7 @@ public class ReferenzValidator extends ValidatorFhirBase {
               .choose(this::getXmlParser, this::getJsonParser);
       val bundleResource = parser.parseResource(Bundle.class, nullSafeContent);
       return validateUnprofiledBundle(bundleResource);
-    } else if (hasProfile(content)) {
+    } else if (hasProfile(summary)) {
       log.info("Validating profiled resource with ReferenzValidator");
       return validateWithRefVal(content);
     } else {
@@ -114,12 +123,11 @@ public class ReferenzValidator extends ValidatorFhirBase {
    * check if the content contains any profiles Note: RefVal does not know
    * http://hl7.org/fhir/StructureDefinition/OperationOutcome thus skip as well
    *
-   * @param content
+   * @param summary of the content
    * @return true if content has a profile other than OperationOutcome
    */
-  private boolean hasProfile(String content) {
-    return this.profileExtractor.extractProfile(content).stream()
-        .anyMatch(p -> !p.contains("OperationOutcome"));
+  private boolean hasProfile(ResourceSummary summary) {
+    return summary.getProfile().stream().anyMatch(p -> !p.contains("OperationOutcome"));
   }
 
   private ValidationResult validateWithRefVal(String content) {
@@ -138,19 +146,11 @@ public class ReferenzValidator extends ValidatorFhirBase {
   }
 
   private IParser getXmlParser() {
-    if (this.xmlParser == null) {
-      this.xmlParser =
-          this.getContext().newXmlParser().setOverrideResourceIdWithBundleEntryFullUrl(false);
-    }
-    return this.xmlParser;
+    return this.xmlParser.get();
   }
 
   private IParser getJsonParser() {
-    if (this.jsonParser == null) {
-      this.jsonParser =
-          this.getContext().newJsonParser().setOverrideResourceIdWithBundleEntryFullUrl(false);
-    }
-    return this.jsonParser;
+    return this.jsonParser.get();
   }
 
   /**
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation;
+
+import java.util.Arrays;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+
+/**
+ * The outcome of a single streaming pass over a raw FHIR resource by the {@link ProfileExtractor}.
+ * Holds only the few informations which are required for choosing the validation strategy
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class ResourceSummary {
+
+  private static final ResourceSummary EMPTY =
+      new ResourceSummary(null, null, null, BundleType.NULL);
+
+  @Nullable private final String resourceType;
+  @Nullable private final String rootProfile;
+  @Nullable private final String entryProfile;
+  private final BundleType bundleType;
+
+  static ResourceSummary empty() {
+    return EMPTY;
+  }
+
+  public Optional<String> getResourceType() {
+    return Optional.ofNullable(this.resourceType);
+  }
+
+  /**
+   * Get the profile of the resource: this is usually the first profile of the root resource. Only
+   * for collection bundles without a profile on root, the profile of the first entry which has a
+   * profile is taken instead
+   *
+   * @return the profile or empty if no profile was found
+   */
+  public Optional<String> getProfile() {
+    if (this.isOfType(BundleType.COLLECTION)) {
+      return this.getRootProfile().or(() -> Optional.ofNullable(this.entryProfile));
+    } else {
+      return this.getRootProfile();
+    }
+  }
+
+  public Optional<String> getRootProfile() {
+    return Optional.ofNullable(this.rootProfile);
+  }
+
+  /**
+   * @return the {@link BundleType} which is {@link BundleType#NULL} for all non-bundle resources
+   */
+  public BundleType getBundleType() {
+    return this.bundleType;
+  }
+
+  /**
+   * A searchset or collection bundle without an explicit profile might contain entries from
+   * different profile sets and thus needs to be validated entry by entry
+   *
+   * @return true if the resource is a searchset or collection without a profile on root
+   */
+  public boolean isUnprofiledSearchSet() {
+    return this.getRootProfile().isEmpty()
+        && this.isOfType(BundleType.SEARCHSET, BundleType.COLLECTION);
+  }
+
+  public boolean isOfType(BundleType... types) {
+    return Arrays.asList(types).contains(this.bundleType);
+  }
+}
@@ -22,6 +22,8 @@ package de.gematik.bbriccs.fhir.validation;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.validation.ValidationResult;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import lombok.val;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
@@ -89,4 +91,26 @@ public interface ValidatorFhir {
   default boolean isValid(IBaseResource resource) {
     return this.validate(resource).isSuccessful();
   }
+
+  /**
+   * Eagerly prepare this validator for validation, e.g. by generating the snapshots of all loaded
+   * profiles. This moves the latency of lazy initialisation away from the first validations.
+   *
+   * <p>As default implementation, nothing needs to be prepared
+   */
+  default void warmUp() {
+    // nothing to prepare by default
+  }
+
+  /**
+   * Run {@link #warmUp()} in the background. The warm-up might take a while and should not occupy a
+   * shared pool like the {@link java.util.concurrent.ForkJoinPool#commonPool()}, thus the caller
+   * decides where to run it
+   *
+   * @param executor to run the warm-up on
+   * @return a {@link CompletableFuture} which completes when the validator is prepared
+   */
+  default CompletableFuture<Void> warmUpInBackground(Executor executor) {
+    return CompletableFuture.runAsync(this::warmUp, executor);
+  }
 }
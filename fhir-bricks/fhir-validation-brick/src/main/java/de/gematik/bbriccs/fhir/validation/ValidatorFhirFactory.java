@@ -25,8 +25,9 @@ import static java.text.MessageFormat.format;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.parser.IParser;
-import com.google.common.reflect.ClassPath;
-import com.google.common.reflect.ClassPath.ResourceInfo;
+import ca.uhn.fhir.util.VersionUtil;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.gematik.bbriccs.fhir.EncodingType;
 import de.gematik.bbriccs.fhir.conf.ProfileDto;
 import de.gematik.bbriccs.fhir.conf.ProfileSettingsDto;
@@ -34,21 +35,51 @@ import de.gematik.bbriccs.fhir.conf.ProfilesConfigurator;
 import de.gematik.bbriccs.fhir.conf.exceptions.FhirConfigurationException;
 import de.gematik.bbriccs.fhir.validation.support.CodeSystemFilter;
 import de.gematik.bbriccs.fhir.validation.support.ErrorMessageFilter;
+import de.gematik.bbriccs.fhir.validation.support.ProfileSnapshotCache;
 import de.gematik.bbriccs.fhir.validation.support.ProfileValidationSupport;
+import de.gematik.bbriccs.fhir.validation.support.SnapshotGenerator;
+import de.gematik.bbriccs.toggle.FeatureToggle;
 import de.gematik.bbriccs.utils.ResourceLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
-import lombok.SneakyThrows;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.CodeSystem;
 import org.hl7.fhir.r4.model.NamingSystem;
+import org.hl7.fhir.r4.model.Resource;
 import org.hl7.fhir.r4.model.StructureDefinition;
 import org.hl7.fhir.r4.model.ValueSet;
 
 @Slf4j
 public class ValidatorFhirFactory {
 
+  /** Directory for caching the parsed profile packages with generated snapshots */
+  public static final String SNAPSHOT_CACHE_SYS_PROP_TOGGLE = "bbriccs.fhir.validation.cache";
+
+  /** Set to true for warming up the created validators in the background */
+  public static final String WARM_UP_SYS_PROP_TOGGLE = "bbriccs.fhir.validation.warmup";
+
+  private static final ProfilePackageScanner PACKAGE_SCANNER =
+      new ProfilePackageScanner(ValidatorFhirFactory.class.getClassLoader());
+
+  /** Each warm-up runs once on its own daemon thread which does not keep the JVM alive */
+  private static final Executor WARM_UP_EXECUTOR =
+      command ->
+          new ThreadFactoryBuilder()
+              .setNameFormat("bbriccs-validator-warm-up")
+              .setDaemon(true)
+              .build()
+              .newThread(command)
+              .start();
+
   static {
     /* this will force HAPI to produce error messages in english; by that we can filter messages reliably */
     Locale.setDefault(new Locale("en", "DE"));
@@ -69,27 +100,98 @@ public class ValidatorFhirFactory {
 
   public static ValidatorFhir createValidator(
       FhirContext ctx, List<ProfileSettingsDto> profileSettings) {
+    val snapshotCacheDirectory =
+        FeatureToggle.getStringToggle(SNAPSHOT_CACHE_SYS_PROP_TOGGLE).map(Path::of).orElse(null);
+    val validator = createValidator(ctx, profileSettings, snapshotCacheDirectory);
+    if (FeatureToggle.getBooleanToggle(WARM_UP_SYS_PROP_TOGGLE, false)) {
+      warmUpInBackground(validator);
+    }
+    return validator;
+  }
+
+  /**
+   * Warm up the given validator in the background and log the outcome because nobody else is
+   * waiting for the warm-up to complete
+   *
+   * @param validator to be warmed up
+   * @return a {@link CompletableFuture} which completes when the validator is prepared
+   */
+  static CompletableFuture<Void> warmUpInBackground(ValidatorFhir validator) {
+    val validatorName = validator.getClass().getSimpleName();
+    return validator
+        .warmUpInBackground(WARM_UP_EXECUTOR)
+        .whenComplete(
+            (ignored, error) -> {
+              if (error != null) {
+                log.error("Unable to warm up {} in the background", validatorName, error);
+              } else {
+                log.info("Finished warm up of {} in the background", validatorName);
+              }
+            });
+  }
+
+  /**
+   * Create a validator for the given profile settings
+   *
+   * @param ctx the {@link FhirContext} to be used
+   * @param profileSettings to create the validator for
+   * @param snapshotCacheDirectory optional directory for caching the parsed profile packages with
+   *     generated snapshots; if null the profile packages are parsed on each call
+   * @return the {@link ValidatorFhir}
+   */
+  public static ValidatorFhir createValidator(
+      FhirContext ctx,
+      List<ProfileSettingsDto> profileSettings,
+      @Nullable Path snapshotCacheDirectory) {
     if (profileSettings == null || profileSettings.isEmpty()) {
       throw new FhirConfigurationException(
           "FHIR Configuration does not contain any profile settings");
-    } else if (profileSettings.size() == 1) {
-      return createSingleProfileValidator(ctx, profileSettings.get(0));
+    }
+
+    val snapshotCache =
+        Optional.ofNullable(snapshotCacheDirectory)
+            .map(directory -> new ProfileSnapshotCache(ctx, directory))
+            .orElse(null);
+
+    if (profileSettings.size() == 1) {
+      return createSingleProfileValidator(ctx, profileSettings.get(0), snapshotCache);
     }
 
     val validators =
-        profileSettings.stream().map(ps -> createSingleProfileValidator(ctx, ps)).toList();
-    return new MultiProfileValidator(validators);
+        profileSettings.stream()
+            .map(ps -> createSingleProfileValidator(ctx, ps, snapshotCache))
+            .toList();
+    return new MultiProfileValidator(ctx, validators, MultiProfileValidator.defaultEntryExecutor());
+  }
+
+  /**
+   * Create a validator for the given profile settings which caches the results of validated
+   * contents
+   *
+   * @param ctx the {@link FhirContext} to be used
+   * @param profileSettings to create the validator for
+   * @param maximumSize of cached results before evicting the least recently used ones
+   * @return the {@link CachingValidator}
+   */
+  public static CachingValidator createCachingValidator(
+      FhirContext ctx, List<ProfileSettingsDto> profileSettings, int maximumSize) {
+    val validator = createValidator(ctx, profileSettings);
+    return new CachingValidator(validator, maximumSize);
   }
 
   private static ProfiledValidator createSingleProfileValidator(
-      FhirContext ctx, ProfileSettingsDto profileSettings) {
-    val supports = create(ctx, profileSettings);
+      FhirContext ctx,
+      ProfileSettingsDto profileSettings,
+      @Nullable ProfileSnapshotCache snapshotCache) {
+    val supports = create(ctx, profileSettings, snapshotCache);
     val errorFilter = new ErrorMessageFilter(profileSettings.getErrorFilter());
     return new ProfiledValidator(ctx, profileSettings.getId(), supports, errorFilter);
   }
 
   private static List<IValidationSupport> create(
-      FhirContext ctx, ProfileSettingsDto profileSettings) {
+      FhirContext ctx,
+      ProfileSettingsDto profileSettings,
+      @Nullable ProfileSnapshotCache snapshotCache) {
 
     val supports = new ArrayList<IValidationSupport>(profileSettings.getProfiles().size() + 1);
 
@@ -98,18 +200,77 @@ public class ValidatorFhirFactory {
         .ifPresent(
             ignoredCodeSystems -> supports.add(new CodeSystemFilter(ctx, ignoredCodeSystems)));
 
-    val profileSupports =
-        profileSettings.getProfiles().stream().map(profile -> create(ctx, profile)).toList();
+    val builders =
+        profileSettings.getProfiles().stream()
+            .map(profile -> new Builder(ctx, profile).readPackage())
+            .toList();
+
+    if (snapshotCache == null) {
+      builders.forEach(Builder::parsePackage);
+    } else {
+      loadWithSnapshotCache(ctx, builders, snapshotCache);
+    }
+
+    val profileSupports = builders.stream().map(Builder::build).toList();
     supports.addAll(profileSupports);
     return supports;
   }
 
-  private static IValidationSupport create(FhirContext ctx, ProfileDto profile) {
-    return new Builder(ctx, profile).build();
+  /**
+   * Load the profile packages from the snapshot cache and rebuild the outdated ones. Because
+   * snapshots are generated against the base definitions, all packages of the profile setting are
+   * part of the validation support chain for generating the snapshots. Thus, the cached packages
+   * are keyed by a hash over all packages of the profile setting: once a single package changes,
+   * all packages depending on it are outdated as well and their snapshots are regenerated.
+   */
+  private static void loadWithSnapshotCache(
+      FhirContext ctx, List<Builder> builders, ProfileSnapshotCache snapshotCache) {
+    val settingHash = getSettingHash(builders);
+    val outdated = builders.stream().filter(b -> !b.loadFrom(snapshotCache, settingHash)).toList();
+    if (outdated.isEmpty()) {
+      return;
+    }
+
+    outdated.forEach(Builder::parsePackage);
+
+    val snapshotSupportChain = new ValidationSupportChain();
+    builders.forEach(b -> snapshotSupportChain.addValidationSupport(b.build()));
+    snapshotSupportChain.addValidationSupport(ctx.getValidationSupport());
+    snapshotSupportChain.addValidationSupport(new InMemoryTerminologyServerValidationSupport(ctx));
+    snapshotSupportChain.addValidationSupport(new SnapshotGeneratingValidationSupport(ctx));
+
+    val snapshotGenerator = new SnapshotGenerator(snapshotSupportChain);
+    val structureDefinitions =
+        outdated.stream().flatMap(b -> b.structureDefinitions.values().stream()).toList();
+    val generated = snapshotGenerator.generateSnapshots(structureDefinitions);
+    log.trace("Generated {} snapshots for outdated profile packages", generated);
+
+    outdated.forEach(b -> b.storeTo(snapshotCache, settingHash));
+  }
+
+  /**
+   * Calculate a hash over all profile packages of a profile setting. The HAPI version is part of
+   * the hash because the generated snapshots depend on it
+   *
+   * @return the hex encoded hash of the profile setting
+   */
+  private static String getSettingHash(List<Builder> builders) {
+    val hasher = Hashing.sha256().newHasher();
+    hasher.putString(VersionUtil.getVersion(), StandardCharsets.UTF_8);
+    builders.forEach(
+        b -> {
+          val profileName = b.profile.toString();
+          hasher
+              .putInt(profileName.length())
+              .putString(profileName, StandardCharsets.UTF_8)
+              .putString(b.getPackageHash(), StandardCharsets.UTF_8);
+        });
+    return hasher.hash().toString();
   }
 
   private static class Builder {
 
+    private final SortedSet<String> resourceNames = new TreeSet<>();
     private final Map<String, StructureDefinition> structureDefinitions = new HashMap<>();
     private final Map<String, NamingSystem> namingSystems = new HashMap<>();
     private final Map<String, CodeSystem> codeSystems = new HashMap<>();
@@ -119,6 +280,7 @@ public class ValidatorFhirFactory {
     private final IParser jsonParser;
     private final IParser xmlParser;
     private final ProfileDto profile;
+    private String packageHash;
 
     private Builder(FhirContext ctx, ProfileDto profile) {
       this.ctx = ctx;
@@ -127,48 +289,93 @@ public class ValidatorFhirFactory {
       this.profile = profile;
     }
 
-    @SneakyThrows
-    private ProfileValidationSupport build() {
+    private Builder readPackage() {
       // Note: fhir/profiles is a convention for the resource path of FHIR profiles
       val packageName =
           format("fhir/profiles/{0}-{1}/package", profile.getName(), profile.getVersion());
 
-      ClassPath.from(ValidatorFhirFactory.class.getClassLoader()).getResources().stream()
-          .filter(info -> info.getResourceName().startsWith(packageName))
-          .filter(info -> !info.getResourceName().contains("package.json"))
+      PACKAGE_SCANNER.scan(packageName).stream()
+          .filter(resourceName -> !resourceName.contains("package.json"))
+          .filter(resourceName -> !ProfilePackageScanner.isPackageIndex(resourceName))
           .filter(
-              info ->
-                  profile.getOmitProfiles().stream().noneMatch(info.getResourceName()::contains))
-          .forEach(this::initProfile);
+              resourceName -> profile.getOmitProfiles().stream().noneMatch(resourceName::contains))
+          .forEach(this.resourceNames::add);
+
+      return this;
+    }
+
+    private void parsePackage() {
+      this.resourceNames.forEach(
+          resourceName ->
+              this.initProfile(resourceName, ResourceLoader.readFileFromResource(resourceName)));
+    }
 
+    private ProfileValidationSupport build() {
       return new ProfileValidationSupport(
           ctx, profile, structureDefinitions, namingSystems, codeSystems, valueSets);
     }
 
-    private void initProfile(ResourceInfo info) {
-      val profileContent = ResourceLoader.readFileFromResource(info.getResourceName());
+    /**
+     * Calculate a hash over the content of the profile package. The files are read one by one only
+     * for hashing and are read again when the package needs to be parsed
+     *
+     * @return the hex encoded hash of the profile package
+     */
+    private String getPackageHash() {
+      if (this.packageHash != null) {
+        return this.packageHash;
+      }
+
+      val hasher = Hashing.sha256().newHasher();
+      this.resourceNames.forEach(
+          resourceName -> {
+            val content = ResourceLoader.readFileFromResource(resourceName);
+            hasher
+                .putInt(resourceName.length())
+                .putString(resourceName, StandardCharsets.UTF_8)
+                .putInt(content.length())
+                .putString(content, StandardCharsets.UTF_8);
+          });
+      this.packageHash = hasher.hash().toString();
+      return this.packageHash;
+    }
+
+    private boolean loadFrom(ProfileSnapshotCache snapshotCache, String settingHash) {
+      val cachedResources = snapshotCache.load(this.profile, settingHash);
+      cachedResources.ifPresent(resources -> resources.forEach(this::addResource));
+      return cachedResources.isPresent();
+    }
+
+    private void storeTo(ProfileSnapshotCache snapshotCache, String settingHash) {
+      val resources = new ArrayList<Resource>();
+      resources.addAll(this.structureDefinitions.values());
+      resources.addAll(this.namingSystems.values());
+      resources.addAll(this.codeSystems.values());
+      resources.addAll(this.valueSets.values());
+      snapshotCache.store(this.profile, settingHash, resources);
+    }
+
+    private void initProfile(String resourceName, String profileContent) {
       val fileSizeMb = profileContent.length() / (1024 * 1024);
 
       if (fileSizeMb > 1) {
-        log.warn("Large Profile ({} MB) detected - {}", fileSizeMb, info.getResourceName());
+        log.warn("Large Profile ({} MB) detected - {}", fileSizeMb, resourceName);
         log.warn(
             "\tThis might lead to excessive memory consumption: make sure you really need {} and"
                 + " consider the ''omitProfiles'' option",
-            info.getResourceName());
+            resourceName);
       } else {
-        log.trace("Load Profile ({} MB) - {}", fileSizeMb, info.getResourceName());
+        log.trace("Load Profile ({} MB) - {}", fileSizeMb, resourceName);
       }
 
       val parser =
-          EncodingType.chooseAppropriateParser(
-              info.getResourceName(), this.xmlParser, this.jsonParser);
+          EncodingType.chooseAppropriateParser(resourceName, this.xmlParser, this.jsonParser);
 
       try {
         val resource = parser.parseResource(profileContent);
         this.addResource(resource);
       } catch (Exception e) {
-        val message =
-            format("Something went wrong while reading profile {0}", info.getResourceName());
+        val message = format("Something went wrong while reading profile {0}", resourceName);
         throw new FhirConfigurationException(message, e);
       }
     }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation.support;
+
+import static java.text.MessageFormat.format;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import de.gematik.bbriccs.fhir.conf.ProfileDto;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * On-disk cache for the resources of a profile package. Each package is stored as a single JSON
+ * collection bundle, identified by a hash over the whole profile setting the package belongs to.
+ * Because the generated snapshots depend on the other packages of the profile setting, the same
+ * package is cached separately for each profile setting: the file is named after the package and
+ * the hash of the profile setting. A cached package is only loaded if the stored hash matches the
+ * current one, otherwise it is considered to be outdated and will be rebuilt. Storing a package
+ * removes the cached files of the same package with another hash, thus only the most recent one is
+ * kept.
+ */
+@Slf4j
+public class ProfileSnapshotCache {
+
+  private final FhirContext ctx;
+  @Getter private final Path directory;
+
+  public ProfileSnapshotCache(FhirContext ctx, Path directory) {
+    this.ctx = ctx;
+    this.directory = directory;
+  }
+
+  /**
+   * Load the cached resources of the given profile package
+   *
+   * @param profile of the package to be loaded
+   * @param settingHash the content hash of the current profile setting
+   * @return the cached resources or an empty optional if nothing or an outdated package is cached
+   */
+  public Optional<List<Resource>> load(ProfileDto profile, String settingHash) {
+    val file = this.getCacheFile(profile, settingHash);
+    if (!Files.isRegularFile(file)) {
+      log.trace("No cached snapshot for {} in {}", profile, this.directory);
+      return Optional.empty();
+    }
+
+    try (val reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      val bundle = this.ctx.newJsonParser().parseResource(Bundle.class, reader);
+      if (!settingHash.equals(bundle.getIdElement().getIdPart())) {
+        log.info("Cached snapshot of {} is outdated and will be rebuilt", profile);
+        return Optional.empty();
+      }
+
+      log.trace("Load cached snapshot of {} from {}", profile, file);
+      return Optional.of(
+          bundle.getEntry().stream().map(Bundle.BundleEntryComponent::getResource).toList());
+    } catch (IOException | DataFormatException e) {
+      log.warn("Unable to read cached snapshot of {} from {}: {}", profile, file, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Store the resources of the given profile package and remove the outdated ones
+   *
+   * @param profile of the package to be stored
+   * @param settingHash the content hash of the current profile setting
+   * @param resources of the profile package
+   */
+  public void store(
+      ProfileDto profile, String settingHash, Collection<? extends Resource> resources) {
+    val bundle = new Bundle();
+    bundle.setId(settingHash);
+    bundle.setType(Bundle.BundleType.COLLECTION);
+    resources.forEach(resource -> bundle.addEntry().setResource(resource));
+
+    val file = this.getCacheFile(profile, settingHash);
+    Path tmpFile = null;
+    try {
+      Files.createDirectories(this.directory);
+      // write to a temporary file first to prevent concurrent readers from seeing partial content
+      tmpFile = Files.createTempFile(this.directory, profile.toString(), ".tmp");
+      try (val writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+        this.ctx.newJsonParser().encodeResourceToWriter(bundle, writer);
+      }
+      Files.move(
+          tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      log.trace("Stored snapshot of {} to {}", profile, file);
+      this.deleteOutdated(profile, file);
+    } catch (IOException e) {
+      log.warn("Unable to store snapshot of {} to {}: {}", profile, file, e.getMessage());
+    } finally {
+      deleteQuietly(tmpFile);
+    }
+  }
+
+  private void deleteOutdated(ProfileDto profile, Path currentFile) throws IOException {
+    val cacheFilePattern = Pattern.compile(Pattern.quote(profile.toString()) + "-\\w+\\.json");
+    try (val files = Files.list(this.directory)) {
+      files
+          .filter(f -> !f.equals(currentFile))
+          .filter(f -> cacheFilePattern.matcher(f.getFileName().toString()).matches())
+          .forEach(
+              f -> {
+                log.trace("Delete outdated snapshot of {} from {}", profile, f);
+                deleteQuietly(f);
+              });
+    }
+  }
+
+  private static void deleteQuietly(@Nullable Path file) {
+    if (file == null) return;
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Unable to delete {}: {}", file, e.getMessage());
+    }
+  }
+
+  private Path getCacheFile(ProfileDto profile, String settingHash) {
+    return this.directory.resolve(format("{0}-{1}.json", profile, settingHash));
+  }
+}
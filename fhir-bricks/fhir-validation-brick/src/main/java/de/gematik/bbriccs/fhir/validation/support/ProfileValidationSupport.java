@@ -41,11 +41,21 @@ public class ProfileValidationSupport implements IValidationSupport {
   private final FhirContext ctx;
   private final ProfileDto profile;
 
-  private final Map<String, StructureDefinition> structureDefinitions;
   private final Map<String, NamingSystem> namingSystems; // NOSONAR this might be required
   private final Map<String, CodeSystem> codeSystems;
   private final Map<String, ValueSet> valueSets;
 
+  /** canonical lookup indices keyed by URL and by URL|version for every accepted version */
+  private final Map<String, StructureDefinition> structureDefinitionIndex;
+
+  private final Map<String, CodeSystem> codeSystemIndex;
+  private final Map<String, ValueSet> valueSetIndex;
+
+  /** immutable views handed out on the frequent fetch-all calls of the validator */
+  private final List<IBaseResource> allStructureDefinitions;
+
+  private final List<IBaseResource> allNonBaseStructureDefinitions;
+
   @SneakyThrows
   public ProfileValidationSupport(
       FhirContext ctx,
@@ -70,10 +80,28 @@ public class ProfileValidationSupport implements IValidationSupport {
       this.profile.setCompatibleVersions(List.of());
     }
 
-    this.structureDefinitions = structureDefinitions;
     this.namingSystems = namingSystems;
     this.codeSystems = codeSystems;
     this.valueSets = valueSets;
+
+    val acceptedVersions = acceptedVersions(this.profile);
+    this.structureDefinitionIndex = createIndex(structureDefinitions, acceptedVersions);
+    this.codeSystemIndex = createIndex(codeSystems, acceptedVersions);
+    this.valueSetIndex = createIndex(valueSets, acceptedVersions);
+
+    this.allStructureDefinitions = List.copyOf(structureDefinitions.values());
+    this.allNonBaseStructureDefinitions =
+        List.copyOf(IValidationSupport.super.fetchAllNonBaseStructureDefinitions());
+  }
+
+  /**
+   * Get all canonical URLs of StructureDefinitions this support resolves, in plain and in every
+   * accepted versioned form
+   *
+   * @return an immutable set of canonical URLs
+   */
+  public Set<String> getStructureDefinitionCanonicals() {
+    return this.structureDefinitionIndex.keySet();
   }
 
   @Override
@@ -96,60 +124,97 @@ public class ProfileValidationSupport implements IValidationSupport {
   @Override
   @SuppressWarnings("unchecked")
   public <T extends IBaseResource> List<T> fetchAllStructureDefinitions() {
-    val retVal = new ArrayList<>(this.structureDefinitions.values());
-    return (List<T>) Collections.unmodifiableList(retVal);
+    return (List<T>) this.allStructureDefinitions;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends IBaseResource> List<T> fetchAllNonBaseStructureDefinitions() {
+    return (List<T>) this.allNonBaseStructureDefinitions;
   }
 
   @Override
   public IBaseResource fetchCodeSystem(String theSystem) {
-    return fetchBaseResource(theSystem, this.codeSystems);
+    return fetchBaseResource(theSystem, this.codeSystemIndex);
   }
 
   @Override
   public IBaseResource fetchStructureDefinition(String theUrl) {
-    return fetchBaseResource(theUrl, this.structureDefinitions);
+    return fetchBaseResource(theUrl, this.structureDefinitionIndex);
   }
 
   @Override
   public IBaseResource fetchValueSet(String theValueSetUrl) {
-    return fetchBaseResource(theValueSetUrl, this.valueSets);
+    return fetchBaseResource(theValueSetUrl, this.valueSetIndex);
   }
 
   private <R extends IBaseResource> IBaseResource fetchBaseResource(
-      String resourceUrl, Map<String, R> map) {
-    if (!matchesClaim(resourceUrl)) return null;
-
-    val tokens = resourceUrl.split("\\|");
-    val url = tokens[0];
-    val version = tokens.length > 1 ? tokens[1] : null;
-
-    R resource = null;
-
-    boolean exactVersionMatch = false;
-    if (version == null) {
-      // no version given, try to find simply by URL
-      // this results in a greedy fetch between competing profile versions
-      resource = map.get(url);
-    } else if (matchesVersion(version)) {
-      // profile version does match exactly
-      resource = map.get(url);
-      exactVersionMatch = true;
+      String resourceUrl, Map<String, R> index) {
+    if (resourceUrl == null) return null;
+
+    var resource = index.get(resourceUrl);
+    if (resource == null) {
+      resource = fetchByNormalizedVersion(resourceUrl, index);
     }
 
-    val matched = resource != null;
-    if (matched) {
-      val em = exactVersionMatch ? "with exact version" : "without version";
+    if (resource != null) {
       log.trace(
-          "Matched {} in profile {}:{} {}",
+          "Matched {} in profile {}:{}",
           resourceUrl,
           this.profile.getName(),
-          this.profile.getVersion(),
-          em);
+          this.profile.getVersion());
     }
 
     return resource;
   }
 
+  /**
+   * Resolve versioned URLs which are not indexed literally: an empty version as in <code>url|
+   * </code> is treated like the plain URL and any other version is accepted if it is one of the
+   * compatible versions or equal to the version of this profile as defined by {@link
+   * VersionUtil#areEqual(String, String)}
+   */
+  private <R extends IBaseResource> R fetchByNormalizedVersion(
+      String resourceUrl, Map<String, R> index) {
+    val separator = resourceUrl.indexOf('|');
+    if (separator < 0) return null;
+
+    val resource = index.get(resourceUrl.substring(0, separator));
+    if (resource == null) return null;
+
+    val versionEnd = resourceUrl.indexOf('|', separator + 1);
+    val version =
+        resourceUrl.substring(separator + 1, versionEnd < 0 ? resourceUrl.length() : versionEnd);
+    return version.isEmpty() || this.matchesVersion(version) ? resource : null;
+  }
+
+  private boolean matchesVersion(String version) {
+    val myVersion = this.profile.getVersion();
+    return this.profile.getAllVersions().contains(version)
+        || (myVersion != null && VersionUtil.areEqual(myVersion, version));
+  }
+
+  /**
+   * Build the exact-match index for the given resources. Only resources matching the canonical
+   * claims of the profile are indexed: once by the plain URL which results in a greedy fetch
+   * between competing profile versions and once for each version accepted by this profile
+   *
+   * @param resources the resources keyed by their canonical URL
+   * @param acceptedVersions all version strings which are accepted for this profile
+   * @return an immutable index
+   */
+  private <R extends IBaseResource> Map<String, R> createIndex(
+      Map<String, R> resources, Set<String> acceptedVersions) {
+    val index = new HashMap<String, R>();
+    resources.forEach(
+        (url, resource) -> {
+          if (url == null || !matchesClaim(url)) return;
+          index.put(url, resource);
+          acceptedVersions.forEach(version -> index.put(url + "|" + version, resource));
+        });
+    return Map.copyOf(index);
+  }
+
   private boolean matchesClaim(String theUrl) {
     if (this.profile.getCanonicalClaims().isEmpty()) {
       return true;
@@ -158,9 +223,22 @@ public class ProfileValidationSupport implements IValidationSupport {
     return this.profile.getCanonicalClaims().stream().anyMatch(theUrl::startsWith);
   }
 
-  private boolean matchesVersion(String version) {
-    val myVersion = this.profile.getVersion();
-    return this.profile.getAllVersions().contains(version)
-        || VersionUtil.areEqual(myVersion, version);
+  /**
+   * Resolve all version strings which are accepted when referencing a resource of the given
+   * profile: the version itself, all compatible versions and the equivalent notation of the version
+   * with or without a zero patch as defined by {@link VersionUtil#areEqual(String, String)}
+   */
+  static Set<String> acceptedVersions(ProfileDto profile) {
+    val versions = new LinkedHashSet<>(profile.getAllVersions());
+    val myVersion = profile.getVersion();
+    if (myVersion == null) return versions;
+
+    val tokens = myVersion.split("\\.");
+    if (tokens.length == 2) {
+      versions.add(myVersion + ".0");
+    } else if (tokens.length == 3 && tokens[2].equals("0")) {
+      versions.add(myVersion.substring(0, myVersion.lastIndexOf('.')));
+    }
+    return versions;
   }
 }
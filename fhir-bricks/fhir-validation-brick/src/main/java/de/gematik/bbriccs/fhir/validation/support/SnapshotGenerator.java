@@ -0,0 +1,152 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation.support;
+
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.hl7.fhir.common.hapi.validation.validator.ProfileKnowledgeWorkerR5;
+import org.hl7.fhir.common.hapi.validation.validator.VersionSpecificWorkerContextWrapper;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r5.conformance.profile.ProfileUtilities;
+
+/**
+ * Generates the snapshots of many StructureDefinitions in a row. In contrast to the {@link
+ * org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport} which creates a
+ * new worker context for each StructureDefinition, the worker context is shared between all
+ * generations here.
+ */
+@Slf4j
+public class SnapshotGenerator {
+
+  private final IValidationSupport validationSupport;
+  private final VersionCanonicalizer canonicalizer;
+  private final VersionSpecificWorkerContextWrapper workerContext;
+  private final ProfileUtilities profileUtilities;
+
+  /**
+   * @param validationSupport providing the base definitions, usually a chain of all profile
+   *     packages and the FHIR core definitions
+   */
+  public SnapshotGenerator(IValidationSupport validationSupport) {
+    val ctx = validationSupport.getFhirContext();
+    this.validationSupport = validationSupport;
+    this.canonicalizer = new VersionCanonicalizer(ctx);
+    this.workerContext =
+        new VersionSpecificWorkerContextWrapper(
+            new ValidationSupportContext(validationSupport), this.canonicalizer);
+    this.profileUtilities =
+        new ProfileUtilities(
+            this.workerContext, new ArrayList<>(), new ProfileKnowledgeWorkerR5(ctx));
+  }
+
+  /**
+   * Generate the missing snapshots of all given StructureDefinitions. The snapshots of base
+   * definitions are generated first, thus derived profiles can reuse them. StructureDefinitions
+   * whose snapshot cannot be generated are skipped with a warning
+   *
+   * @param structureDefinitions to generate the snapshots for
+   * @return the number of generated snapshots
+   */
+  public int generateSnapshots(Collection<StructureDefinition> structureDefinitions) {
+    val failed = new HashSet<String>();
+    var generated = 0;
+    int generatedInPass;
+    do {
+      generatedInPass = generateSnapshots(structureDefinitions, failed, true);
+      generated += generatedInPass;
+    } while (generatedInPass > 0);
+    generated += generateSnapshots(structureDefinitions, failed, false);
+    return generated;
+  }
+
+  private int generateSnapshots(
+      Collection<StructureDefinition> structureDefinitions,
+      Set<String> failed,
+      boolean requireBaseSnapshot) {
+    val candidates =
+        structureDefinitions.stream()
+            .filter(sd -> !sd.hasSnapshot() && sd.hasBaseDefinition())
+            .filter(sd -> !failed.contains(sd.getUrl()))
+            .filter(sd -> !requireBaseSnapshot || this.hasBaseSnapshot(sd))
+            .toList();
+
+    var generated = 0;
+    for (val sd : candidates) {
+      try {
+        if (this.generateSnapshot(sd)) {
+          generated++;
+        } else {
+          failed.add(sd.getUrl());
+        }
+      } catch (Exception e) {
+        log.warn("Unable to generate snapshot for {}: {}", sd.getUrl(), e.getMessage());
+        failed.add(sd.getUrl());
+      }
+    }
+
+    return generated;
+  }
+
+  /**
+   * Check if the base definition of the given StructureDefinition is known and has a snapshot
+   *
+   * @param structureDefinition to check the base definition for
+   * @return true if the snapshot of the base definition is available
+   */
+  public boolean hasBaseSnapshot(StructureDefinition structureDefinition) {
+    return this.validationSupport.fetchStructureDefinition(structureDefinition.getBaseDefinition())
+            instanceof StructureDefinition base
+        && base.hasSnapshot();
+  }
+
+  /**
+   * Generate the snapshot of the given StructureDefinition and set it to the given instance
+   *
+   * @param structureDefinition to generate the snapshot for
+   * @return true if the snapshot was generated or false if the base definition is unknown
+   */
+  public boolean generateSnapshot(StructureDefinition structureDefinition) {
+    val input = this.canonicalizer.structureDefinitionToCanonical(structureDefinition);
+    val base =
+        this.workerContext.fetchResource(
+            org.hl7.fhir.r5.model.StructureDefinition.class, input.getBaseDefinition());
+    if (base == null) {
+      log.warn(
+          "Unable to generate snapshot for {} because base definition {} is unknown",
+          input.getUrl(),
+          input.getBaseDefinition());
+      return false;
+    }
+
+    this.profileUtilities.generateSnapshot(base, input, input.getUrl(), null, input.getName());
+    val generated =
+        (StructureDefinition) this.canonicalizer.structureDefinitionFromCanonical(input);
+    structureDefinition.setSnapshot(generated.getSnapshot());
+    return structureDefinition.hasSnapshot();
+  }
+}
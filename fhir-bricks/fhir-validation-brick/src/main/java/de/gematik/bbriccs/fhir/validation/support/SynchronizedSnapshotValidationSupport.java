@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation.support;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+/**
+ * The {@link SnapshotGeneratingValidationSupport} writes the generated snapshot into the given
+ * StructureDefinition, which is shared between all validations, and tracks the currently generating
+ * snapshots in a non-thread-safe set of the {@link ValidationSupportContext}. This support
+ * serializes the generation of snapshots, thus a validator can be used by multiple threads at once.
+ * Because each snapshot is generated only once per validator, the lock is not contended after
+ * warming up.
+ */
+public class SynchronizedSnapshotValidationSupport extends SnapshotGeneratingValidationSupport {
+
+  public SynchronizedSnapshotValidationSupport(FhirContext ctx) {
+    super(ctx);
+  }
+
+  @Override
+  public synchronized IBaseResource generateSnapshot(
+      ValidationSupportContext theValidationSupportContext,
+      IBaseResource theInput,
+      String theUrl,
+      String theWebUrl,
+      String theProfileName) {
+    return super.generateSnapshot(
+        theValidationSupportContext, theInput, theUrl, theWebUrl, theProfileName);
+  }
+}
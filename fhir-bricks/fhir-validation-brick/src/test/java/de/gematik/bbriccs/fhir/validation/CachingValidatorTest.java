@@ -0,0 +1,204 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.validation.ValidationResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.val;
+import org.hl7.fhir.r4.model.Bundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingValidatorTest {
+
+  private static final FhirContext CTX = FhirContext.forR4();
+
+  private ValidatorFhir delegate;
+
+  @BeforeEach
+  void setUp() {
+    this.delegate = mock(ValidatorFhir.class);
+    when(this.delegate.getContext()).thenReturn(CTX);
+    when(this.delegate.validate(anyString()))
+        .thenAnswer(invocation -> new ValidationResult(CTX, List.of()));
+    when(this.delegate.validate(any(Bundle.class)))
+        .thenAnswer(invocation -> new ValidationResult(CTX, List.of()));
+  }
+
+  @Test
+  void shouldValidateIdenticalContentOnlyOnce() {
+    val validator = new CachingValidator(this.delegate, 10);
+
+    val first = validator.validate("content");
+    val second = validator.validate("content");
+
+    assertEquals(first.getMessages(), second.getMessages());
+    verify(this.delegate, times(1)).validate("content");
+    assertEquals(1, validator.getHitCount());
+    assertEquals(1, validator.getMissCount());
+    assertEquals(1, validator.getSize());
+    assertEquals(CTX, validator.getContext());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsed() {
+    val validator = new CachingValidator(this.delegate, 2);
+
+    validator.validate("a");
+    validator.validate("b");
+    validator.validate("a"); // a is now more recently used than b
+    validator.validate("c"); // evicts b
+
+    assertEquals(2, validator.getSize());
+    validator.validate("a");
+    validator.validate("b");
+
+    verify(this.delegate, times(1)).validate("a");
+    verify(this.delegate, times(2)).validate("b");
+    assertEquals(2, validator.getHitCount());
+    assertEquals(4, validator.getMissCount());
+  }
+
+  @Test
+  void shouldHandleNullContentAsEmpty() {
+    val validator = new CachingValidator(this.delegate, 10);
+
+    validator.validate((String) null);
+    validator.validate("");
+
+    verify(this.delegate, times(1)).validate("");
+    assertEquals(1, validator.getHitCount());
+  }
+
+  @Test
+  void shouldNotCacheResources() {
+    val validator = new CachingValidator(this.delegate, 10);
+    val bundle = new Bundle();
+
+    validator.validate(bundle);
+    validator.validate(bundle);
+
+    verify(this.delegate, times(2)).validate(bundle);
+    assertEquals(0, validator.getSize());
+  }
+
+  @Test
+  void shouldClearCacheAndCounters() {
+    val validator = new CachingValidator(this.delegate, 10);
+    validator.validate("content");
+    validator.validate("content");
+
+    validator.clear();
+    assertEquals(0, validator.getSize());
+    assertEquals(0, validator.getHitCount());
+    assertEquals(0, validator.getMissCount());
+  }
+
+  @Test
+  void shouldKeyByContent() {
+    val key = CachingValidator.cacheKey("content");
+    assertEquals(key, CachingValidator.cacheKey("content"));
+    assertNotEquals(key, CachingValidator.cacheKey("other"));
+  }
+
+  @Test
+  void shouldNotShareModifiableResults() {
+    val message = new SingleValidationMessage();
+    message.setSeverity(ResultSeverityEnum.ERROR);
+    message.setMessage("error");
+    when(this.delegate.validate("content"))
+        .thenAnswer(invocation -> new ValidationResult(CTX, new ArrayList<>(List.of(message))));
+    val validator = new CachingValidator(this.delegate, 10);
+
+    val first = validator.validate("content");
+    assertThrows(UnsupportedOperationException.class, () -> first.getMessages().clear());
+
+    val second = validator.validate("content");
+    assertNotSame(first, second);
+    assertEquals(List.of(message), second.getMessages());
+    assertFalse(second.isSuccessful());
+  }
+
+  @Test
+  void shouldValidateConcurrentMissesOnlyOnce() throws InterruptedException {
+    val started = new CountDownLatch(1);
+    val release = new CountDownLatch(1);
+    when(this.delegate.validate("content"))
+        .thenAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              return new ValidationResult(CTX, List.of());
+            });
+    val validator = new CachingValidator(this.delegate, 10);
+
+    val first = CompletableFuture.supplyAsync(() -> validator.validate("content"));
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    val second = CompletableFuture.supplyAsync(() -> validator.validate("content"));
+    // the second call must wait for the validation in progress
+    assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+    release.countDown();
+
+    assertTrue(first.join().isSuccessful());
+    assertTrue(second.join().isSuccessful());
+    verify(this.delegate, times(1)).validate("content");
+    assertEquals(1, validator.getMissCount());
+    assertEquals(1, validator.getHitCount());
+  }
+
+  @Test
+  void shouldNotCacheFailedValidations() {
+    when(this.delegate.validate("content"))
+        .thenThrow(new IllegalStateException("failed"))
+        .thenAnswer(invocation -> new ValidationResult(CTX, List.of()));
+    val validator = new CachingValidator(this.delegate, 10);
+
+    assertThrows(IllegalStateException.class, () -> validator.validate("content"));
+    assertEquals(0, validator.getSize());
+    assertTrue(validator.validate("content").isSuccessful());
+    verify(this.delegate, times(2)).validate("content");
+  }
+
+  @Test
+  void shouldThrowOnInvalidMaximumSize() {
+    assertThrows(IllegalArgumentException.class, () -> new CachingValidator(this.delegate, 0));
+  }
+
+  @Test
+  void shouldDelegateWarmUp() {
+    val validator = new CachingValidator(this.delegate, 10);
+    validator.warmUp();
+    verify(this.delegate).warmUp();
+  }
+}
@@ -20,26 +20,40 @@
 
 package de.gematik.bbriccs.fhir.validation;
 
+import static java.text.MessageFormat.format;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.ValidationResult;
 import de.gematik.bbriccs.fhir.EncodingType;
 import de.gematik.bbriccs.fhir.validation.utils.FhirValidatingTest;
+import de.gematik.bbriccs.utils.ConcurrencyUtil;
 import de.gematik.bbriccs.utils.ResourceLoader;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import lombok.val;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.CanonicalType;
+import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class MultiProfileValidatorTest extends FhirValidatingTest {
 
-  private static final ValidatorFhir MY_VALIDATOR =
-      ValidatorFhirFactory.createValidator(FhirContext.forR4());
+  private static final String PROFILED_TASK =
+      "<Task xmlns=\"http://hl7.org/fhir\"><meta><profile value=\"{0}\"/></meta></Task>";
+
+  private static final FhirContext CTX = FhirContext.forR4();
+  private static final ValidatorFhir MY_VALIDATOR = ValidatorFhirFactory.createValidator(CTX);
 
   static Stream<Arguments> validErpResources() {
     val files = ResourceLoader.getResourceFilesInDirectory("examples/fhir/valid/erp", true);
@@ -67,6 +81,26 @@ class MultiProfileValidatorTest extends FhirValidatingTest {
     assertTrue(vr.isSuccessful());
   }
 
+  @ParameterizedTest(name = "[{index}] Validate decoded invalid File ''{0}'' directly")
+  @ValueSource(
+      strings = {
+        "examples/fhir/invalid/erp/erx/erp_bundle_missing_id_01.xml",
+        "examples/fhir/invalid/erp/erx/erp_bundle_missing_id_02.xml"
+      })
+  void shouldValidateInvalidDecodedResources(String path) {
+    val content = ResourceLoader.readFileFromResource(path);
+    val parser =
+        this.fhirValidator
+            .getContext()
+            .newXmlParser()
+            .setOverrideResourceIdWithBundleEntryFullUrl(false);
+    val bundle = parser.parseResource(Bundle.class, content);
+
+    val vr = this.fhirValidator.validate(bundle);
+    assertFalse(vr.isSuccessful());
+    assertEquals(this.fhirValidator.validate(content).isSuccessful(), vr.isSuccessful());
+  }
+
   @Test
   void shouldFilterEmptyProfiles() {
     val content =
@@ -83,4 +117,170 @@ class MultiProfileValidatorTest extends FhirValidatingTest {
     val vr = this.fhirValidator.validate(bundle);
     assertTrue(vr.isSuccessful());
   }
+
+  static Stream<Arguments> unprofiledBundles() {
+    return Stream.of(
+            "examples/fhir/valid/erp/erx/1.2.0/chargeitembundle/abc825bc-bc30-45f8-b109-1b343fff5c45.json",
+            "examples/fhir/valid/erp/erx/1.2.0/chargeitembundle/ea33a992-a214-11ed-a8fc-0242ac120002.xml",
+            "examples/fhir/valid/erp/erx/mixed/task_bundle_01.json",
+            "examples/fhir/invalid/erp/erx/1.2.0/chargeitembundle/InValidBundle_40057350-a305-11ed-a8fc-0242ac120002.xml")
+        .map(Arguments::of);
+  }
+
+  @ParameterizedTest(name = "[{index}] Validate entries of ''{0}'' in parallel")
+  @MethodSource("unprofiledBundles")
+  void shouldMergeParallelEntryValidationsInOrder(String path) {
+    val content = ResourceLoader.readFileFromResource(path);
+    val multiProfileValidator = (MultiProfileValidator) MY_VALIDATOR;
+    val sequentialValidator = multiProfileValidator.withEntryExecutor(Runnable::run);
+
+    val executor = Executors.newFixedThreadPool(4);
+    try {
+      val parallelValidator = multiProfileValidator.withEntryExecutor(executor);
+      val expected = sequentialValidator.validate(content);
+      val actual = parallelValidator.validate(content);
+
+      assertEquals(expected.isSuccessful(), actual.isSuccessful());
+      assertEquals(toComparable(expected), toComparable(actual));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldValidateEntriesInParallelOnColdValidator() {
+    val content =
+        ResourceLoader.readFileFromResource(
+            "examples/fhir/valid/erp/erx/mixed/chargeitem_bundle_01.xml");
+
+    val executor = Executors.newFixedThreadPool(4);
+    try {
+      // a fresh validator has to generate the snapshots concurrently for all entries
+      val coldValidator =
+          ((MultiProfileValidator) ValidatorFhirFactory.createValidator(FhirContext.forR4()))
+              .withEntryExecutor(executor);
+      val vr = coldValidator.validate(content);
+      this.printValidationResult(vr);
+      assertTrue(vr.isSuccessful());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldUseDedicatedDefaultEntryExecutor() {
+    val defaultExecutor = MultiProfileValidator.defaultEntryExecutor();
+    assertSame(defaultExecutor, MultiProfileValidator.defaultEntryExecutor());
+    assertNotSame(ForkJoinPool.commonPool(), defaultExecutor);
+
+    val worker = CompletableFuture.supplyAsync(Thread::currentThread, defaultExecutor).join();
+    assertTrue(worker.isDaemon());
+    assertTrue(worker.getName().startsWith("bbriccs-entry-validation-"));
+  }
+
+  @Test
+  void shouldShareInjectedContext() {
+    assertSame(CTX, MY_VALIDATOR.getContext());
+  }
+
+  @Test
+  void shouldValidateConcurrentlyWithSharedContext() {
+    val contents =
+        unprofiledBundles()
+            .map(args -> ResourceLoader.readFileFromResource((String) args.get()[0]))
+            .toList();
+    val expected =
+        contents.stream()
+            .map(MY_VALIDATOR::validate)
+            .map(MultiProfileValidatorTest::toComparable)
+            .toList();
+
+    val results =
+        ConcurrencyUtil.runConcurrently(
+            8, 16, i -> toComparable(MY_VALIDATOR.validate(contents.get(i % contents.size()))));
+    for (var i = 0; i < results.size(); i++) {
+      assertEquals(expected.get(i % contents.size()), results.get(i));
+    }
+  }
+
+  private static List<String> toComparable(ValidationResult vr) {
+    return vr.getMessages().stream()
+        .map(m -> format("{0} {1} {2}", m.getSeverity(), m.getLocationString(), m.getMessage()))
+        .toList();
+  }
+
+  @Test
+  void shouldRouteProfilesOnlyOnce() {
+    val supported = "https://gematik.de/fhir/erp/StructureDefinition/GEM_ERP_PR_Task";
+    val unsupported = "https://unknown.de/StructureDefinition/Unknown";
+    val defaultValidator = mock(ProfiledValidator.class);
+    val otherValidator = mock(ProfiledValidator.class);
+    when(otherValidator.doesSupport(supported)).thenReturn(true);
+
+    val validator =
+        new MultiProfileValidator(List.of(defaultValidator, otherValidator), Runnable::run);
+    for (var i = 0; i < 3; i++) {
+      validator.validate(format(PROFILED_TASK, supported));
+      validator.validate(format(PROFILED_TASK, unsupported));
+    }
+
+    verify(otherValidator, times(3)).validate(anyString());
+    verify(defaultValidator, times(3)).validate(anyString());
+    verify(defaultValidator).doesSupport(supported);
+    verify(otherValidator).doesSupport(supported);
+    // unsupported profiles are routed to the default validator once
+    verify(defaultValidator).doesSupport(unsupported);
+    verify(otherValidator).doesSupport(unsupported);
+  }
+
+  @Test
+  void shouldRouteToFirstSupportingValidator() {
+    val profile = "https://gematik.de/fhir/erp/StructureDefinition/GEM_ERP_PR_Task";
+    val first = mock(ProfiledValidator.class);
+    val second = mock(ProfiledValidator.class);
+    // e.g. the first one supports the profile only through its other profile supports
+    when(first.doesSupport(profile)).thenReturn(true);
+    when(second.doesSupport(profile)).thenReturn(true);
+
+    val validator = new MultiProfileValidator(List.of(first, second), Runnable::run);
+    validator.validate(format(PROFILED_TASK, profile));
+    validator.validate(format(PROFILED_TASK, profile));
+
+    verify(first, times(2)).validate(anyString());
+    verify(second, never()).validate(anyString());
+    verify(second, never()).doesSupport(profile);
+  }
+
+  @Test
+  void shouldRethrowOriginalExceptionOfEntryValidation() {
+    val defaultValidator = mock(ProfiledValidator.class);
+    when(defaultValidator.validate(any(IBaseResource.class)))
+        .thenThrow(new IllegalStateException("entry validation failed"));
+    val validator = new MultiProfileValidator(List.of(defaultValidator));
+
+    val bundle = new Bundle().setType(Bundle.BundleType.COLLECTION);
+    bundle.addEntry().setResource(new Patient());
+    bundle.addEntry().setResource(new Patient());
+
+    assertThrows(IllegalStateException.class, () -> validator.validate(bundle));
+  }
+
+  @Test
+  void shouldRethrowOriginalExceptionOfWarmUp() {
+    val defaultValidator = mock(ProfiledValidator.class);
+    doThrow(new IllegalStateException("warm up failed")).when(defaultValidator).warmUp();
+    val validator = new MultiProfileValidator(List.of(defaultValidator));
+
+    assertThrows(IllegalStateException.class, validator::warmUp);
+  }
+
+  @Test
+  void shouldWarmUpAllProfiledValidators() {
+    val first = mock(ProfiledValidator.class);
+    val second = mock(ProfiledValidator.class);
+    val validator = new MultiProfileValidator(List.of(first, second));
+    validator.warmUp();
+    verify(first).warmUp();
+    verify(second).warmUp();
+  }
 }
@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.gematik.bbriccs.utils.ResourceLoader;
 import lombok.*;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
 import org.hl7.fhir.r4.model.Configuration;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -115,6 +116,22 @@ class ProfileExtractorTest {
     assertFalse(profileExtractor.isUnprofiledSearchSet(content));
   }
 
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "{\"meta\": {\"profile\": [\"x\"]}, \"id\": \"1\", \"resourceType\": \"Patient\"}",
+        "<?xml version=\"1.0\"?><Patient xmlns=\"http://hl7.org/fhir\"><id value=\"1\"/></Patient>"
+      })
+  void shouldExtractResourceType(String content) {
+    assertEquals("Patient", profileExtractor.extractResourceType(content).orElseThrow());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"{\"id\": \"1\"}", "[]", "{\"id\": ", "<Patient"})
+  void shouldNotExtractResourceTypeFromInvalidContent(String content) {
+    assertTrue(profileExtractor.extractResourceType(content).isEmpty());
+  }
+
   @ParameterizedTest
   @ValueSource(
       strings = {
@@ -140,4 +157,77 @@ class ProfileExtractorTest {
     val content = ResourceLoader.readFileFromResource(resourcePath);
     assertFalse(profileExtractor.isUnprofiledSearchSet(content));
   }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "examples/fhir/valid/erp/erx/1.2.0/receiptbundle/dffbfd6a-5712-4798-bdc8-07201eb77ab8.json",
+        "examples/fhir/valid/erp/erx/1.2.0/receiptbundle/dffbfd6a-5712-4798-bdc8-07201eb77ab8.xml"
+      })
+  void shouldSummarizeProfiledBundles(String resourcePath) {
+    val content = ResourceLoader.readFileFromResource(resourcePath);
+    val summary = profileExtractor.summarize(content);
+
+    assertEquals("Bundle", summary.getResourceType().orElseThrow());
+    assertEquals(BundleType.DOCUMENT, summary.getBundleType());
+    assertTrue(summary.getProfile().orElseThrow().contains("GEM_ERP_PR_Bundle"));
+    assertFalse(summary.isUnprofiledSearchSet());
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "examples/fhir/valid/erp/erx/1.2.0/chargeitembundle/abc825bc-bc30-45f8-b109-1b343fff5c45.json",
+        "examples/fhir/valid/erp/erx/1.2.0/chargeitembundle/ea33a992-a214-11ed-a8fc-0242ac120002.xml"
+      })
+  void shouldSummarizeUnprofiledSearchSets(String resourcePath) {
+    val content = ResourceLoader.readFileFromResource(resourcePath);
+    val summary = profileExtractor.summarize(content);
+
+    assertEquals("Bundle", summary.getResourceType().orElseThrow());
+    assertEquals(BundleType.SEARCHSET, summary.getBundleType());
+    assertTrue(summary.getProfile().isEmpty());
+    assertTrue(summary.isUnprofiledSearchSet());
+  }
+
+  @Test
+  void shouldSummarizeJsonCollectionFromEntries() {
+    val content =
+        """
+        {"resourceType": "Bundle", "type": "collection", "meta": {"profile": [""]},
+         "entry": [
+          {"fullUrl": "urn:uuid:1", "resource": {"resourceType": "Patient", "meta": {}}},
+          {"fullUrl": "urn:uuid:2", "resource": {"resourceType": "Patient",
+           "meta": {"profile": ["https://gematik.de/test/patient|1.0", "https://other"]}}}
+         ]}
+        """;
+    val summary = profileExtractor.summarize(content);
+
+    assertEquals(BundleType.COLLECTION, summary.getBundleType());
+    assertTrue(summary.getRootProfile().isEmpty());
+    assertEquals("https://gematik.de/test/patient|1.0", summary.getProfile().orElseThrow());
+    assertTrue(summary.isUnprofiledSearchSet());
+  }
+
+  @Test
+  void shouldNotTakeBundleTypeFromOtherResources() {
+    val content =
+        """
+        {"resourceType": "StructureDefinition", "type": "collection",
+         "meta": {"profile": ["https://gematik.de/test"]}}
+        """;
+    val summary = profileExtractor.summarize(content);
+
+    assertEquals("StructureDefinition", summary.getResourceType().orElseThrow());
+    assertEquals(BundleType.NULL, summary.getBundleType());
+    assertEquals("https://gematik.de/test", summary.getProfile().orElseThrow());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"<xml>", "alternative_json", "", "[1, 2]", "<Patient>text</Patient>"})
+  void shouldSummarizeInvalidContentEmpty(String content) {
+    val summary = assertDoesNotThrow(() -> profileExtractor.summarize(content));
+    assertTrue(summary.getProfile().isEmpty());
+    assertEquals(BundleType.NULL, summary.getBundleType());
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ResourceInfo;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfilePackageScannerTest {
+
+  private static final String TEST_PACKAGE = "fhir/profiles/test.package-1.0.0/package";
+
+  @Test
+  void shouldScanSameResourcesAsClassPath() throws IOException {
+    val packageName = "fhir/profiles/de.basisprofil.r4-1.3.2/package";
+    val classLoader = ProfilePackageScannerTest.class.getClassLoader();
+
+    val expected =
+        ClassPath.from(classLoader).getResources().stream()
+            .map(ResourceInfo::getResourceName)
+            .filter(resourceName -> resourceName.startsWith(packageName + "/"))
+            .filter(resourceName -> !resourceName.substring(packageName.length() + 1).contains("/"))
+            .distinct()
+            .sorted()
+            .toList();
+
+    val scanner = new ProfilePackageScanner(classLoader);
+    val resourceNames = scanner.scan(packageName);
+    assertFalse(resourceNames.isEmpty());
+    assertEquals(expected, resourceNames);
+  }
+
+  @Test
+  void shouldScanDirectoryWithoutSubfolders(@TempDir Path root) throws IOException {
+    val packageDir = Files.createDirectories(root.resolve(TEST_PACKAGE));
+    Files.writeString(packageDir.resolve("StructureDefinition-a.json"), "{}");
+    Files.createDirectories(packageDir.resolve("examples"));
+    Files.writeString(packageDir.resolve("examples/Patient-b.json"), "{}");
+    Files.writeString(root.resolve("fhir/profiles/other.json"), "{}");
+
+    try (val classLoader = new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+      val resourceNames = new ProfilePackageScanner(classLoader).scan(TEST_PACKAGE);
+      assertEquals(List.of(TEST_PACKAGE + "/StructureDefinition-a.json"), resourceNames);
+    }
+  }
+
+  @Test
+  void shouldScanJar(@TempDir Path root) throws IOException {
+    val jar =
+        createJar(
+            root,
+            TEST_PACKAGE + "/",
+            TEST_PACKAGE + "/package.json",
+            TEST_PACKAGE + "/StructureDefinition-a.json",
+            TEST_PACKAGE + "/examples/",
+            TEST_PACKAGE + "/examples/Patient-b.json",
+            "fhir/profiles/other.package-1.0.0/package/StructureDefinition-b.json");
+
+    try (val classLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+      val resourceNames = new ProfilePackageScanner(classLoader).scan(TEST_PACKAGE);
+      assertEquals(
+          List.of(TEST_PACKAGE + "/StructureDefinition-a.json", TEST_PACKAGE + "/package.json"),
+          resourceNames);
+    }
+  }
+
+  @Test
+  void shouldScanJarWithoutDirectoryEntries(@TempDir Path root) throws IOException {
+    // jars built without directory entries cannot be found via ClassLoader.getResources
+    val jar =
+        createJar(
+            root,
+            TEST_PACKAGE + "/package.json",
+            TEST_PACKAGE + "/StructureDefinition-a.json",
+            TEST_PACKAGE + "/examples/Patient-b.json",
+            "fhir/profiles/other.package-1.0.0/package/StructureDefinition-b.json");
+
+    try (val classLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+      assertNull(classLoader.getResource(TEST_PACKAGE));
+      val resourceNames = new ProfilePackageScanner(classLoader).scan(TEST_PACKAGE);
+      assertEquals(
+          List.of(TEST_PACKAGE + "/StructureDefinition-a.json", TEST_PACKAGE + "/package.json"),
+          resourceNames);
+    }
+  }
+
+  @Test
+  void shouldPreferPackageIndex(@TempDir Path root) throws IOException {
+    val packageDir = Files.createDirectories(root.resolve(TEST_PACKAGE));
+    Files.writeString(packageDir.resolve("StructureDefinition-a.json"), "{}");
+    Files.writeString(packageDir.resolve("StructureDefinition-b.json"), "{}");
+    Files.writeString(
+        packageDir.resolve(ProfilePackageScanner.PACKAGE_INDEX),
+        """
+        {
+          "index-version": 1,
+          "files": [
+            { "filename": "StructureDefinition-a.json", "resourceType": "StructureDefinition" }
+          ]
+        }
+        """);
+
+    try (val classLoader = new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+      val resourceNames = new ProfilePackageScanner(classLoader).scan(TEST_PACKAGE);
+      assertEquals(List.of(TEST_PACKAGE + "/StructureDefinition-a.json"), resourceNames);
+    }
+  }
+
+  @Test
+  void shouldDetectResourcesWithinPackage() {
+    assertTrue(ProfilePackageScanner.isWithinPackage(TEST_PACKAGE, TEST_PACKAGE + "/a.json"));
+    assertFalse(ProfilePackageScanner.isWithinPackage(TEST_PACKAGE, TEST_PACKAGE + "/"));
+    assertFalse(ProfilePackageScanner.isWithinPackage(TEST_PACKAGE, TEST_PACKAGE + "/ex/a.json"));
+    assertFalse(ProfilePackageScanner.isWithinPackage(TEST_PACKAGE, TEST_PACKAGE + "-2/a.json"));
+    assertFalse(ProfilePackageScanner.isWithinPackage(TEST_PACKAGE, TEST_PACKAGE));
+  }
+
+  @Test
+  void shouldDetectPackageIndex() {
+    assertTrue(ProfilePackageScanner.isPackageIndex(TEST_PACKAGE + "/.index.json"));
+    assertFalse(ProfilePackageScanner.isPackageIndex(TEST_PACKAGE + "/package.json"));
+  }
+
+  private static Path createJar(Path root, String... entryNames) throws IOException {
+    val jar = root.resolve("profiles.jar");
+    try (val jos = new JarOutputStream(Files.newOutputStream(jar))) {
+      for (val name : entryNames) {
+        jos.putNextEntry(new JarEntry(name));
+        jos.closeEntry();
+      }
+    }
+    return jar;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import de.gematik.bbriccs.fhir.conf.ProfileDto;
+import de.gematik.bbriccs.fhir.validation.support.ProfileValidationSupport;
+import java.util.List;
+import java.util.Map;
+import lombok.val;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ProfiledValidatorTest {
+
+  private static final String SD_URL = "https://gematik.de/fhir/erp/StructureDefinition/Test";
+
+  private static ProfileValidationSupport createProfileSupport() {
+    val profile = new ProfileDto();
+    profile.setName("de.gematik.erezept-workflow.r4");
+    profile.setVersion("1.2.0");
+    profile.setCanonicalClaims(List.of("https://gematik.de/fhir/erp"));
+    val sd = new StructureDefinition().setUrl(SD_URL);
+    return new ProfileValidationSupport(
+        FhirContext.forR4Cached(), profile, Map.of(SD_URL, sd), Map.of(), Map.of(), Map.of());
+  }
+
+  @Test
+  void shouldSupportPlainAndVersionedCanonicals() {
+    val validator = new ProfiledValidator("test", List.of(createProfileSupport()));
+
+    assertTrue(validator.doesSupport(SD_URL));
+    assertTrue(validator.doesSupport(SD_URL + "|1.2.0"));
+    assertTrue(validator.doesSupport(SD_URL + "|1.2"));
+    assertFalse(validator.doesSupport(SD_URL + "|1.3.0"));
+    assertFalse(validator.doesSupport("https://fhir.kbv.de/StructureDefinition/Test"));
+    assertFalse(validator.doesSupport(null));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"|", "|1.2.0|", "|1.3.0", "|1.3.0|", "||"})
+  void shouldSupportNormalizedVersionsLikeProfileSupport(String versionSuffix) {
+    val profileSupport = createProfileSupport();
+    val validator = new ProfiledValidator("test", List.of(profileSupport));
+
+    val url = SD_URL + versionSuffix;
+    val isFetchable = profileSupport.fetchStructureDefinition(url) != null;
+    assertEquals(isFetchable, validator.doesSupport(url));
+  }
+
+  @Test
+  void shouldSupportEmptyVersion() {
+    val validator = new ProfiledValidator("test", List.of(createProfileSupport()));
+    assertTrue(validator.doesSupport(SD_URL + "|"));
+  }
+
+  @Test
+  void shouldAskOtherSupportsOnLookup() {
+    val otherSupport = mock(IValidationSupport.class);
+    val otherUrl = "https://fhir.kbv.de/StructureDefinition/Test";
+    doReturn(new StructureDefinition()).when(otherSupport).fetchStructureDefinition(otherUrl);
+    when(otherSupport.getFhirContext()).thenReturn(FhirContext.forR4Cached());
+
+    val validator = new ProfiledValidator("test", List.of(createProfileSupport(), otherSupport));
+
+    assertTrue(validator.doesSupport(SD_URL));
+    verify(otherSupport, never()).fetchStructureDefinition(SD_URL);
+    assertTrue(validator.doesSupport(otherUrl));
+    assertFalse(validator.doesSupport(SD_URL + "|2.0.0"));
+  }
+
+  @Test
+  void shouldGenerateSnapshotsOnWarmUp() {
+    val sd =
+        new StructureDefinition()
+            .setUrl(SD_URL)
+            .setName("Test")
+            .setType("Patient")
+            .setKind(StructureDefinition.StructureDefinitionKind.RESOURCE)
+            .setDerivation(StructureDefinition.TypeDerivationRule.CONSTRAINT)
+            .setBaseDefinition("http://hl7.org/fhir/StructureDefinition/Patient");
+    sd.getDifferential().addElement().setPath("Patient.gender").setMin(1).setId("Patient.gender");
+
+    val profile = new ProfileDto();
+    profile.setName("de.gematik.erezept-workflow.r4");
+    profile.setVersion("1.2.0");
+    val support =
+        new ProfileValidationSupport(
+            FhirContext.forR4Cached(), profile, Map.of(SD_URL, sd), Map.of(), Map.of(), Map.of());
+
+    val validator = new ProfiledValidator("test", List.of(support));
+    assertFalse(sd.hasSnapshot());
+    assertDoesNotThrow(validator::warmUp);
+    assertTrue(sd.hasSnapshot());
+    val gender =
+        sd.getSnapshot().getElement().stream()
+            .filter(e -> e.getPath().equals("Patient.gender"))
+            .findFirst()
+            .orElseThrow();
+    assertEquals(1, gender.getMin());
+  }
+
+  @Test
+  void shouldWarmUpWithoutProfiles() {
+    val validator = new ProfiledValidator("test", List.of());
+    assertDoesNotThrow(() -> validator.warmUpInBackground(Runnable::run).join());
+  }
+}
@@ -20,23 +20,37 @@
 
 package de.gematik.bbriccs.fhir.validation;
 
+import static java.text.MessageFormat.format;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.ValidationResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import de.gematik.bbriccs.fhir.conf.ProfileDto;
 import de.gematik.bbriccs.fhir.conf.ProfileSettingsDto;
 import de.gematik.bbriccs.fhir.conf.exceptions.FhirConfigurationException;
 import de.gematik.bbriccs.fhir.exceptions.UnsupportedEncodingException;
 import de.gematik.bbriccs.utils.PrivateConstructorsUtil;
 import de.gematik.bbriccs.utils.ResourceLoader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 import lombok.val;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.StructureDefinition;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class ValidatorFhirFactoryTest {
 
@@ -123,4 +137,170 @@ class ValidatorFhirFactoryTest {
     val validator = ValidatorFhirFactory.createValidator(FhirContext.forR4(), configuredProfiles);
     assertEquals(ProfiledValidator.class, validator.getClass());
   }
+
+  @Test
+  void shouldCreateCachingValidator() throws JsonProcessingException {
+    val profilesConfig =
+        ResourceLoader.readFileFromResource("fhir/single_profile_configuration.yaml");
+    val mapper =
+        new ObjectMapper(new YAMLFactory())
+            .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+    val configuredProfiles =
+        mapper.readValue(profilesConfig, new TypeReference<List<ProfileSettingsDto>>() {});
+    val validator =
+        ValidatorFhirFactory.createCachingValidator(FhirContext.forR4(), configuredProfiles, 10);
+    assertEquals(10, validator.getMaximumSize());
+  }
+
+  @Test
+  void shouldWarmUpOnDaemonThread() {
+    val validator = mock(ValidatorFhir.class);
+    val warmUpThread = new AtomicReference<Thread>();
+    when(validator.warmUpInBackground(any())).thenCallRealMethod();
+    doAnswer(
+            invocation -> {
+              warmUpThread.set(Thread.currentThread());
+              return null;
+            })
+        .when(validator)
+        .warmUp();
+
+    assertDoesNotThrow(() -> ValidatorFhirFactory.warmUpInBackground(validator).join());
+    assertTrue(warmUpThread.get().isDaemon());
+    assertNotSame(Thread.currentThread(), warmUpThread.get());
+  }
+
+  @Test
+  void shouldCompleteFailedWarmUpExceptionally() {
+    val validator = mock(ValidatorFhir.class);
+    when(validator.warmUpInBackground(any())).thenCallRealMethod();
+    doThrow(new IllegalStateException("failed")).when(validator).warmUp();
+
+    val warmUp = ValidatorFhirFactory.warmUpInBackground(validator);
+    val exception = assertThrows(CompletionException.class, warmUp::join);
+    assertInstanceOf(IllegalStateException.class, exception.getCause());
+  }
+
+  @Test
+  void shouldCreateAndReuseSnapshotCache(@TempDir Path cacheDirectory) throws IOException {
+    val profilesConfig =
+        ResourceLoader.readFileFromResource("fhir/snapshot_cache_configuration.yaml");
+    val mapper =
+        new ObjectMapper(new YAMLFactory())
+            .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+    val configuredProfiles =
+        mapper.readValue(profilesConfig, new TypeReference<List<ProfileSettingsDto>>() {});
+    val ctx = FhirContext.forR4();
+
+    assertDoesNotThrow(
+        () -> ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory));
+    val cacheFiles = findCacheFiles(cacheDirectory, "de.basisprofil.r4-1.3.2-");
+    assertEquals(1, cacheFiles.size());
+    val cacheFile = cacheFiles.get(0);
+
+    val cached = ctx.newJsonParser().parseResource(Bundle.class, Files.readString(cacheFile));
+    val structureDefinitions =
+        cached.getEntry().stream()
+            .map(Bundle.BundleEntryComponent::getResource)
+            .filter(StructureDefinition.class::isInstance)
+            .map(StructureDefinition.class::cast)
+            .toList();
+    assertFalse(structureDefinitions.isEmpty());
+    assertTrue(structureDefinitions.stream().allMatch(StructureDefinition::hasSnapshot));
+
+    // an up-to-date cache is loaded and not written again
+    val lastModified = Files.getLastModifiedTime(cacheFile);
+    ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory);
+    assertEquals(lastModified, Files.getLastModifiedTime(cacheFile));
+
+    // an outdated cache is rebuilt
+    cached.setId("outdated");
+    Files.writeString(cacheFile, ctx.newJsonParser().encodeResourceToString(cached));
+    ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory);
+    val rebuilt = ctx.newJsonParser().parseResource(Bundle.class, Files.readString(cacheFile));
+    assertEquals(cached.getEntry().size(), rebuilt.getEntry().size());
+    assertNotEquals("outdated", rebuilt.getIdElement().getIdPart());
+  }
+
+  @Test
+  void shouldKeepOnlyRecentSnapshotsPerProfile(@TempDir Path cacheDirectory) throws IOException {
+    val configuredProfiles = readProfileSettings("fhir/snapshot_cache_configuration.yaml");
+    val ctx = FhirContext.forR4();
+    ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory);
+    val basisProfileFiles = findCacheFiles(cacheDirectory, "de.basisprofil.r4-1.3.2-");
+    assertEquals(1, basisProfileFiles.size());
+
+    // adding a package to the setting outdates the snapshots of all the other packages
+    val additionalProfile = new ProfileDto();
+    additionalProfile.setName("dav.kbv.sfhir.cs.vs");
+    additionalProfile.setVersion("1.0.3");
+    additionalProfile.setCanonicalClaims(List.of("https://fhir.kbv.de/"));
+    configuredProfiles.get(0).getProfiles().add(0, additionalProfile);
+    ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory);
+
+    // the outdated package is replaced by the one of the current profile setting
+    val recentBasisProfileFiles = findCacheFiles(cacheDirectory, "de.basisprofil.r4-1.3.2-");
+    assertEquals(1, recentBasisProfileFiles.size());
+    assertNotEquals(basisProfileFiles, recentBasisProfileFiles);
+    assertFalse(Files.exists(basisProfileFiles.get(0)));
+    assertEquals(1, findCacheFiles(cacheDirectory, "dav.kbv.sfhir.cs.vs-1.0.3-").size());
+  }
+
+  @Test
+  void shouldValidateEquallyWithCachedSnapshots(@TempDir Path cacheDirectory) throws IOException {
+    val configuredProfiles = readProfileSettings("fhir/single_profile_configuration.yaml");
+    val ctx = FhirContext.forR4();
+    val contents =
+        Stream.concat(
+                ResourceLoader.getResourceFilesInDirectory(
+                        "examples/fhir/valid/erp/kbv/1.1.0/bundle")
+                    .stream()
+                    .limit(3),
+                ResourceLoader.getResourceFilesInDirectory("examples/fhir/invalid/erp/kbv")
+                    .stream())
+            .map(ResourceLoader::readString)
+            .toList();
+
+    val uncachedValidator = ValidatorFhirFactory.createValidator(ctx, configuredProfiles, null);
+    // the first validator generates the snapshots while the second one loads them from the cache
+    val coldCachedValidator =
+        ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory);
+    val warmCachedValidator =
+        ValidatorFhirFactory.createValidator(ctx, configuredProfiles, cacheDirectory);
+
+    for (val content : contents) {
+      val expected = toComparable(uncachedValidator.validate(content));
+      assertEquals(expected, toComparable(coldCachedValidator.validate(content)));
+      assertEquals(expected, toComparable(warmCachedValidator.validate(content)));
+    }
+  }
+
+  private static List<ProfileSettingsDto> readProfileSettings(String resourceName)
+      throws JsonProcessingException {
+    val profilesConfig = ResourceLoader.readFileFromResource(resourceName);
+    val mapper =
+        new ObjectMapper(new YAMLFactory())
+            .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+    return mapper.readValue(profilesConfig, new TypeReference<>() {});
+  }
+
+  private static List<Path> findCacheFiles(Path cacheDirectory, String prefix) throws IOException {
+    try (val files = Files.list(cacheDirectory)) {
+      return files
+          .filter(
+              file -> {
+                val fileName = file.getFileName().toString();
+                return fileName.startsWith(prefix) && fileName.endsWith(".json");
+              })
+          .toList();
+    }
+  }
+
+  /** HAPI reports the details of matching slices in no particular order */
+  private static List<String> toComparable(ValidationResult vr) {
+    return vr.getMessages().stream()
+        .map(m -> format("{0} {1} {2}", m.getSeverity(), m.getLocationString(), m.getMessage()))
+        .sorted()
+        .toList();
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.gematik.bbriccs.fhir.conf.ProfileDto;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.val;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileSnapshotCacheTest {
+
+  private static final FhirContext CTX = FhirContext.forR4Cached();
+
+  private static ProfileDto createProfile(String name) {
+    val profile = new ProfileDto();
+    profile.setName(name);
+    profile.setVersion("1.0.0");
+    return profile;
+  }
+
+  private static List<String> listFileNames(Path directory) throws IOException {
+    try (val files = Files.list(directory)) {
+      return files.map(f -> f.getFileName().toString()).sorted().toList();
+    }
+  }
+
+  @Test
+  void shouldKeepOnlyOneCacheFileOnChangedHash(@TempDir Path directory) throws IOException {
+    val cache = new ProfileSnapshotCache(CTX, directory);
+    val profile = createProfile("de.gematik.test");
+    val otherProfile = createProfile("de.gematik.test-other");
+    val resources = List.of(new StructureDefinition().setUrl("https://gematik.de/fhir/Test"));
+
+    cache.store(otherProfile, "hash1", resources);
+    cache.store(profile, "hash1", resources);
+    cache.store(profile, "hash2", resources);
+
+    assertEquals(
+        List.of("de.gematik.test-1.0.0-hash2.json", "de.gematik.test-other-1.0.0-hash1.json"),
+        listFileNames(directory));
+    assertTrue(cache.load(profile, "hash1").isEmpty());
+    assertEquals(1, cache.load(profile, "hash2").orElseThrow().size());
+  }
+
+  @Test
+  void shouldDeleteTemporaryFileOnFailure(@TempDir Path directory) throws IOException {
+    val cache = new ProfileSnapshotCache(CTX, directory);
+    val profile = createProfile("de.gematik.test");
+
+    // a non-empty directory in place of the cache file lets the move fail
+    val blocked = Files.createDirectories(directory.resolve("de.gematik.test-1.0.0-hash1.json"));
+    Files.createFile(blocked.resolve("blocker"));
+
+    val resources = List.of(new StructureDefinition().setUrl("https://gematik.de/fhir/Test"));
+    assertDoesNotThrow(() -> cache.store(profile, "hash1", resources));
+    assertEquals(List.of("de.gematik.test-1.0.0-hash1.json"), listFileNames(directory));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.fhir.validation.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.gematik.bbriccs.fhir.coding.version.VersionUtil;
+import de.gematik.bbriccs.fhir.conf.ProfileDto;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.val;
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ProfileValidationSupportTest {
+
+  private static final String SD_URL = "https://gematik.de/fhir/erp/StructureDefinition/Test";
+  private static final String CS_URL = "https://gematik.de/fhir/erp/CodeSystem/Test";
+  private static final String VS_URL = "https://gematik.de/fhir/erp/ValueSet/Test";
+  private static final String FOREIGN_URL = "https://fhir.kbv.de/StructureDefinition/Test";
+
+  private static ProfileDto createProfile(String version, String... compatibleVersions) {
+    val profile = new ProfileDto();
+    profile.setName("de.gematik.erezept-workflow.r4");
+    profile.setVersion(version);
+    profile.setCompatibleVersions(List.of(compatibleVersions));
+    profile.setCanonicalClaims(List.of("https://gematik.de/fhir/erp"));
+    return profile;
+  }
+
+  private static ProfileValidationSupport createSupport(ProfileDto profile) {
+    val sd = new StructureDefinition().setUrl(SD_URL);
+    val foreignSd = new StructureDefinition().setUrl(FOREIGN_URL);
+    val cs = new CodeSystem().setUrl(CS_URL);
+    val vs = new ValueSet().setUrl(VS_URL);
+    return new ProfileValidationSupport(
+        FhirContext.forR4Cached(),
+        profile,
+        Map.of(SD_URL, sd, FOREIGN_URL, foreignSd),
+        Map.of(),
+        Map.of(CS_URL, cs),
+        Map.of(VS_URL, vs));
+  }
+
+  static Stream<Arguments> shouldLookupWithVersions() {
+    return Stream.of(
+        Arguments.of("1.2.0", "1.2.0", true),
+        Arguments.of("1.2.0", "1.2", true),
+        Arguments.of("1.2", "1.2.0", true),
+        Arguments.of("1.2", "1.2", true),
+        Arguments.of("1.2.3", "1.2.3", true),
+        Arguments.of("1.2.3", "1.2", false),
+        Arguments.of("1.2.0", "1.2.1", false),
+        Arguments.of("1.2.0", "1.1", true),
+        Arguments.of("1.2.0", "1.1.0", false),
+        Arguments.of("1.2.0", "2.0.0", false));
+  }
+
+  @ParameterizedTest(name = "[{index}] profile version {0} with requested version {1}")
+  @MethodSource
+  void shouldLookupWithVersions(String profileVersion, String requestedVersion, boolean expected) {
+    val profile = createProfile(profileVersion, "1.1");
+    val support = createSupport(profile);
+
+    // the index must agree with the previous version comparison
+    val compared =
+        profile.getAllVersions().contains(requestedVersion)
+            || VersionUtil.areEqual(profileVersion, requestedVersion);
+    assertEquals(expected, compared);
+
+    val sd = support.fetchStructureDefinition(SD_URL + "|" + requestedVersion);
+    val cs = support.fetchCodeSystem(CS_URL + "|" + requestedVersion);
+    val vs = support.fetchValueSet(VS_URL + "|" + requestedVersion);
+    assertEquals(expected, sd != null);
+    assertEquals(expected, cs != null);
+    assertEquals(expected, vs != null);
+  }
+
+  @Test
+  void shouldLookupWithoutVersion() {
+    val support = createSupport(createProfile("1.2.0"));
+    assertNotNull(support.fetchStructureDefinition(SD_URL));
+    assertNotNull(support.fetchCodeSystem(CS_URL));
+    assertNotNull(support.fetchValueSet(VS_URL));
+  }
+
+  @ParameterizedTest(name = "[{index}] profile version {0} with requested URL suffix {1}")
+  @CsvSource({"1.0.0, |", "1.0.0, |1.0", "1.0, |1.0.0", "1.0.0, |1.0.0|", "1.0.0, ||"})
+  void shouldLookupWithEmptyOrEquivalentVersion(String profileVersion, String suffix) {
+    val support = createSupport(createProfile(profileVersion));
+    assertNotNull(support.fetchStructureDefinition(SD_URL + suffix));
+    assertNotNull(support.fetchCodeSystem(CS_URL + suffix));
+    assertNotNull(support.fetchValueSet(VS_URL + suffix));
+  }
+
+  @Test
+  void shouldNotLookupWithOtherVersionAfterNormalizing() {
+    val support = createSupport(createProfile("1.0.0"));
+    assertNull(support.fetchStructureDefinition(SD_URL + "|1.0.1"));
+    assertNull(support.fetchStructureDefinition(SD_URL + "|1.0.1|"));
+    assertNull(support.fetchStructureDefinition(SD_URL + "Unknown|"));
+    assertNull(support.fetchStructureDefinition(FOREIGN_URL + "|"));
+  }
+
+  @Test
+  void shouldNotLookupUnclaimedUrls() {
+    val support = createSupport(createProfile("1.2.0"));
+    assertNull(support.fetchStructureDefinition(FOREIGN_URL));
+    assertNull(support.fetchStructureDefinition(FOREIGN_URL + "|1.2.0"));
+  }
+
+  @Test
+  void shouldLookupAnyUrlWithoutClaims() {
+    val profile = createProfile("1.2.0");
+    profile.setCanonicalClaims(List.of());
+    val support = createSupport(profile);
+    assertNotNull(support.fetchStructureDefinition(FOREIGN_URL));
+    assertNotNull(support.fetchStructureDefinition(FOREIGN_URL + "|1.2"));
+  }
+
+  @Test
+  void shouldNotLookupUnknownOrNullUrls() {
+    val support = createSupport(createProfile("1.2.0"));
+    assertNull(support.fetchStructureDefinition(SD_URL + "Unknown"));
+    assertNull(support.fetchStructureDefinition(null));
+    assertNull(support.fetchCodeSystem(VS_URL));
+  }
+
+  @Test
+  void shouldReturnSameStructureDefinitionsOnRepeatedCalls() {
+    val support = createSupport(createProfile("1.2.0"));
+    val first = support.fetchAllStructureDefinitions();
+    assertEquals(2, first.size());
+    assertSame(first, support.fetchAllStructureDefinitions());
+    val sd = new StructureDefinition();
+    assertThrows(UnsupportedOperationException.class, () -> first.add(sd));
+  }
+
+  @Test
+  void shouldReturnSameNonBaseStructureDefinitionsOnRepeatedCalls() {
+    val baseSd =
+        new StructureDefinition().setUrl("http://hl7.org/fhir/StructureDefinition/Patient");
+    val sd = new StructureDefinition().setUrl(SD_URL);
+    val support =
+        new ProfileValidationSupport(
+            FhirContext.forR4Cached(),
+            createProfile("1.2.0"),
+            Map.of(SD_URL, sd, baseSd.getUrl(), baseSd),
+            Map.of(),
+            Map.of(),
+            Map.of());
+
+    val first = support.fetchAllNonBaseStructureDefinitions();
+    assertEquals(List.of(sd), first);
+    assertSame(first, support.fetchAllNonBaseStructureDefinitions());
+  }
+}
@@ -23,11 +23,16 @@ package de.gematik.bbriccs.fhir.vzd.r4;
 import static java.text.MessageFormat.format;
 
 import ca.uhn.fhir.model.api.annotation.ResourceDef;
+import de.gematik.bbriccs.fhir.coding.BundleIndex;
 import de.gematik.bbriccs.fhir.coding.exceptions.MissingFieldException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.Resource;
 import org.hl7.fhir.r4.model.ResourceType;
@@ -37,38 +42,45 @@ import org.hl7.fhir.r4.model.ResourceType;
 @SuppressWarnings({"java:S110"})
 public class VzdHealthcareServiceSearchSet extends Bundle {
 
-  private static VzdOrganization findOrganizationByRef(
-      List<VzdOrganization> organizations, Reference orgRef) {
-    return findResourceByRef(organizations, orgRef);
-  }
+  private transient volatile EntryPartition entryPartition;
 
-  private static VzdLocation findLocationById(List<VzdLocation> locations, Reference locationRef) {
-    return findResourceByRef(locations, locationRef);
+  /**
+   * Index the given resources by their plain id part to resolve references in constant time. On
+   * duplicate ids the first resource of the search set wins
+   */
+  private static <R extends Resource> Map<String, R> indexById(List<R> resources) {
+    val index = new HashMap<String, R>(resources.size() * 2);
+    resources.forEach(r -> index.putIfAbsent(r.getIdElement().getIdPart(), r));
+    return index;
   }
 
-  private static <R extends Resource> R findResourceByRef(List<R> resources, Reference ref) {
-    return resources.stream()
-        .filter(r -> ref.getReference().contains(r.getIdElement().getIdPart()))
-        .findFirst()
-        .orElseThrow(
-            () ->
-                new MissingFieldException(
-                    VzdHealthcareServiceSearchSet.class,
-                    format("No resource found by reference {0}", ref.getReference())));
+  /**
+   * Resolve a reference regardless of being relative like {@code Organization/123}, absolute or
+   * versioned by normalizing it to its plain id part
+   */
+  private static <R extends Resource> R findResourceByRef(Map<String, R> resources, Reference ref) {
+    val reference = ref.getReference();
+    val resource = reference != null ? resources.get(new IdType(reference).getIdPart()) : null;
+    if (resource == null) {
+      throw new MissingFieldException(
+          VzdHealthcareServiceSearchSet.class,
+          format("No resource found by reference {0}", reference));
+    }
+    return resource;
   }
 
   public List<VzdHealthServiceTriple> getHealthcareServiceTriples() {
     val hcs = this.getHealthcareServices();
-    val locations = this.getLocations();
-    val organizations = this.getOrganizations();
+    val locations = indexById(this.getLocations());
+    val organizations = indexById(this.getOrganizations());
 
     return hcs.stream()
         .map(
             it -> {
               val locRef = it.getLocation().get(0); // take only the first for now!
               val orgRef = it.getProvidedBy();
-              val loc = findLocationById(locations, locRef);
-              val org = findOrganizationByRef(organizations, orgRef);
+              val loc = findResourceByRef(locations, locRef);
+              val org = findResourceByRef(organizations, orgRef);
               return new VzdHealthServiceTriple(it, org, loc);
             })
         .toList();
@@ -88,10 +100,42 @@ public class VzdHealthcareServiceSearchSet extends Bundle {
 
   @SuppressWarnings("unchecked")
   private <T extends Resource> List<T> getEntryResources(ResourceType resourceType) {
-    return this.getEntry().stream()
-        .map(BundleEntryComponent::getResource)
-        .filter(r -> resourceType.equals(r.getResourceType()))
-        .map(r -> (T) r)
-        .toList();
+    return (List<T>) this.getEntryPartition().index().getResources(resourceType);
+  }
+
+  /**
+   * Partition the entries by their resource type in a single pass on first access. The partition is
+   * rebuilt if the entry list was replaced or any entry was added, removed or got another resource
+   * in the meantime
+   */
+  private EntryPartition getEntryPartition() {
+    val entries = this.getEntry();
+    var partition = this.entryPartition;
+    if (partition == null || !partition.isPartitionOf(entries)) {
+      val resources = entries.stream().map(BundleEntryComponent::getResource).toList();
+      partition = new EntryPartition(entries, resources, BundleIndex.of(entries));
+      this.entryPartition = partition;
+    }
+    return partition;
+  }
+
+  /**
+   * The partition is bound to the entry list and to the resources of the entries at the time of
+   * partitioning. Comparing by identity is cheap compared to rebuilding the partition
+   */
+  private record EntryPartition(
+      List<BundleEntryComponent> entries, List<Resource> resources, BundleIndex index) {
+
+    private boolean isPartitionOf(List<BundleEntryComponent> currentEntries) {
+      if (this.entries != currentEntries || this.resources.size() != currentEntries.size()) {
+        return false;
+      }
+      for (var i = 0; i < currentEntries.size(); i++) {
+        if (this.resources.get(i) != currentEntries.get(i).getResource()) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 }
@@ -27,8 +27,12 @@ import de.gematik.bbriccs.fhir.coding.exceptions.MissingFieldException;
 import de.gematik.bbriccs.fhir.vzd.VzdFhirCodeFactory;
 import de.gematik.bbriccs.fhir.vzd.util.VzdSummaryPrinter;
 import de.gematik.bbriccs.utils.ResourceLoader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 import lombok.val;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.Reference;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -70,6 +74,126 @@ class VzdHealthcareServiceSearchSetTest extends FhirTest {
     assertThrows(MissingFieldException.class, resource::getHealthcareServiceTriples);
   }
 
+  @Test
+  void shouldJoinLargeSearchSets() {
+    val size = 5_000;
+    val searchSet = new VzdHealthcareServiceSearchSet();
+    val baseUrl = "https://fhir-directory-ref.vzd.ti-dienste.de/fdv/search/";
+
+    // add the referenced resources in reverse order to the services
+    for (var i = size - 1; i >= 0; i--) {
+      val org = new VzdOrganization();
+      org.setId("org-" + i);
+      val loc = new VzdLocation();
+      loc.setId("loc-" + i);
+      searchSet.addEntry().setFullUrl(baseUrl + "Organization/org-" + i).setResource(org);
+      searchSet.addEntry().setFullUrl(baseUrl + "Location/loc-" + i).setResource(loc);
+    }
+
+    for (var i = 0; i < size; i++) {
+      val hcs = new VzdHealthcareService();
+      hcs.setId("hcs-" + i);
+      // mix relative, absolute and versioned references
+      val orgRef =
+          (i % 2 == 0)
+              ? "Organization/org-" + i
+              : baseUrl + "Organization/org-" + i + "/_history/1";
+      hcs.setProvidedBy(new Reference(orgRef));
+      hcs.addLocation(new Reference("Location/loc-" + i));
+      searchSet.addEntry().setResource(hcs);
+    }
+
+    val triples =
+        assertTimeoutPreemptively(Duration.ofSeconds(10), searchSet::getHealthcareServiceTriples);
+    assertEquals(size, triples.size());
+    for (var i = 0; i < size; i++) {
+      val triple = triples.get(i);
+      assertEquals("hcs-" + i, triple.service().getIdElement().getIdPart());
+      assertEquals("org-" + i, triple.organization().getIdElement().getIdPart());
+      assertEquals("loc-" + i, triple.location().getIdElement().getIdPart());
+    }
+  }
+
+  @Test
+  void shouldNotJoinOnPartialIds() {
+    val searchSet = new VzdHealthcareServiceSearchSet();
+    val org1 = new VzdOrganization();
+    org1.setId("1");
+    val org12 = new VzdOrganization();
+    org12.setId("12");
+    val loc = new VzdLocation();
+    loc.setId("2");
+    val hcs = new VzdHealthcareService();
+    hcs.setProvidedBy(new Reference("Organization/12"));
+    hcs.addLocation(new Reference("Location/2"));
+    searchSet.addEntry().setResource(org1);
+    searchSet.addEntry().setResource(org12);
+    searchSet.addEntry().setResource(loc);
+    searchSet.addEntry().setResource(hcs);
+
+    val triple = searchSet.getHealthcareServiceTriples().get(0);
+    assertEquals(org12, triple.organization());
+    assertEquals(loc, triple.location());
+  }
+
+  @Test
+  void shouldPartitionEntriesOnce() {
+    val content =
+        ResourceLoader.readFileFromResource(
+            "examples/fhir/valid/vzd/healthcareservicesearchset/search_response_bundle_01.json");
+    val resource = this.fhirCodec.decode(VzdHealthcareServiceSearchSet.class, content);
+
+    val services = resource.getHealthcareServices();
+    assertFalse(services.isEmpty());
+    assertSame(services, resource.getHealthcareServices());
+    assertSame(resource.getOrganizations(), resource.getOrganizations());
+    assertSame(resource.getLocations(), resource.getLocations());
+    assertThrows(
+        UnsupportedOperationException.class, () -> services.add(new VzdHealthcareService()));
+  }
+
+  @Test
+  void shouldRepartitionOnAddedEntries() {
+    val searchSet = new VzdHealthcareServiceSearchSet();
+    assertTrue(searchSet.getOrganizations().isEmpty());
+
+    val org = new VzdOrganization();
+    searchSet.addEntry().setResource(org);
+    assertEquals(List.of(org), searchSet.getOrganizations());
+    assertTrue(searchSet.getLocations().isEmpty());
+  }
+
+  @Test
+  void shouldRepartitionOnReplacedResources() {
+    val searchSet = new VzdHealthcareServiceSearchSet();
+    val org = new VzdOrganization();
+    searchSet.addEntry().setResource(org);
+    assertEquals(List.of(org), searchSet.getOrganizations());
+
+    val loc = new VzdLocation();
+    searchSet.getEntryFirstRep().setResource(loc);
+    assertTrue(searchSet.getOrganizations().isEmpty());
+    assertEquals(List.of(loc), searchSet.getLocations());
+  }
+
+  @Test
+  void shouldRepartitionOnReplacedEntries() {
+    val searchSet = new VzdHealthcareServiceSearchSet();
+    val org = new VzdOrganization();
+    searchSet.addEntry().setResource(org);
+    assertEquals(List.of(org), searchSet.getOrganizations());
+
+    val loc = new VzdLocation();
+    searchSet.setEntry(new ArrayList<>(List.of(new BundleEntryComponent().setResource(loc))));
+    assertTrue(searchSet.getOrganizations().isEmpty());
+    assertEquals(List.of(loc), searchSet.getLocations());
+
+    val otherOrg = new VzdOrganization();
+    searchSet.getEntry().set(0, new BundleEntryComponent().setResource(otherOrg));
+    assertEquals(List.of(otherOrg), searchSet.getOrganizations());
+    assertTrue(searchSet.getLocations().isEmpty());
+  }
+
   static Stream<Arguments> getHealthcareServiceSearchResponseExamples() {
     return ResourceLoader.getResourceFilesInDirectory(
             "examples/fhir/valid/vzd/healthcareservicesearchset/")
@@ -22,9 +22,10 @@ package de.gematik.bbriccs.rest.fd;
 
 import static java.text.MessageFormat.*;
 
-import ca.uhn.fhir.parser.*;
+import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.validation.ValidationResult;
 import de.gematik.bbriccs.fhir.codec.FhirCodec;
+import de.gematik.bbriccs.fhir.codec.ValidatedResource;
 import de.gematik.bbriccs.fhir.codec.exceptions.FhirCodecException;
 import de.gematik.bbriccs.rest.HttpBResponse;
 import java.time.Duration;
@@ -40,28 +41,68 @@ import org.hl7.fhir.r4.model.*;
 @Slf4j
 public class FhirBResponseCreator {
 
-  private final FhirCodec fhir;
-  private final BiFunction<Class<? extends Resource>, String, Resource> decoder;
+  private final BiFunction<Class<? extends Resource>, String, ValidatedResource> decoder;
 
+  /**
+   * @param decoder which validates and decodes the response body in a single operation, usually
+   *     {@link FhirCodec#decodeAndValidate(Class, String)}
+   */
   public FhirBResponseCreator(
-      FhirCodec fhir, BiFunction<Class<? extends Resource>, String, Resource> decoder) {
-    this.fhir = fhir;
+      BiFunction<Class<? extends Resource>, String, ValidatedResource> decoder) {
     this.decoder = decoder;
   }
 
+  /**
+   * @param fhir the codec for validating the response body
+   * @param decoder for decoding the response body
+   * @deprecated validates and decodes the response body separately; use {@link
+   *     #FhirBResponseCreator(BiFunction)} with {@link FhirCodec#decodeAndValidate(Class, String)}
+   *     instead
+   */
+  @Deprecated(since = "0.8.0", forRemoval = true)
+  public FhirBResponseCreator(
+      FhirCodec fhir, BiFunction<Class<? extends Resource>, String, Resource> decoder) {
+    this((expect, content) -> validateAndDecode(fhir, decoder, expect, content));
+  }
+
   public <T extends Resource, R extends Resource> FhirBResponseBuilder<R> takeExpectationFrom(
       FhirBRequest<T, R> request) {
     return expecting(request.expectedResponseType());
   }
 
   public <R extends Resource> FhirBResponseBuilder<R> expecting(Class<R> expectResponseType) {
-    return new FhirBResponseBuilder<>(this.fhir, this.decoder, expectResponseType);
+    return new FhirBResponseBuilder<>(this.decoder, expectResponseType);
+  }
+
+  private static ValidatedResource validateAndDecode(
+      FhirCodec fhir,
+      BiFunction<Class<? extends Resource>, String, Resource> decoder,
+      Class<? extends Resource> expect,
+      String content) {
+    // an empty content will always be valid
+    val vr =
+        content.isBlank()
+            ? new ValidationResult(fhir.getContext(), List.of())
+            : fhir.validate(content);
+
+    Resource resource;
+    try {
+      resource = decoder.apply(expect, content);
+    } catch (FhirCodecException | DataFormatException | IllegalArgumentException e) {
+      // the Backend might respond with an OperationOutcome (or any other unexpected resource)
+      // while another resource was expected: let HAPI decide on the concrete type
+      log.info(
+          format(
+              "Given content of length {0} could not be decoded as {1}, try without expectation",
+              content.length(), expect.getSimpleName()));
+      resource = decoder.apply(null, content);
+    }
+    return new ValidatedResource(resource, vr);
   }
 
   @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
   public static class FhirBResponseBuilder<R extends Resource> {
-    private final FhirCodec fhir;
-    private final BiFunction<Class<? extends Resource>, String, Resource> decoder;
+    private final BiFunction<Class<? extends Resource>, String, ValidatedResource> decoder;
     private final Class<R> expectResponseType;
     @Nullable private String usedAccessToken;
     @Nullable private HttpBResponse httpResponse;
@@ -89,51 +130,20 @@ public class FhirBResponseCreator {
         log.error("Server Error {}: {}", httpResponse.statusCode(), httpResponse.bodyAsString());
       }
 
-      val vr = this.validateContent(httpResponse.bodyAsString());
-      val resource = this.decode(httpResponse.bodyAsString(), expectResponseType);
-      return FhirBResponse.forPayload(expectResponseType, resource)
+      val content = httpResponse.bodyAsString();
+      log.trace(
+          "Try to decode FHIR Content as {}\n{}", expectResponseType.getSimpleName(), content);
+      val decoded = this.decoder.apply(expectResponseType, content);
+      if (!decoded.isValid()) {
+        log.error("FHIR Content is invalid\n{}", content);
+      }
+
+      return FhirBResponse.forPayload(expectResponseType, decoded.getResource())
           .withStatusCode(httpResponse.statusCode())
           .withDuration(duration)
           .usedJwt(usedAccessToken)
           .withHeaders(httpResponse.headers())
-          .andValidationResult(vr);
-    }
-
-    private Resource decode(String content, Class<? extends Resource> expect) {
-      log.trace("Try to decode FHIR Content as {}\n{}", expect.getSimpleName(), content);
-      Resource ret;
-      try {
-        ret = this.decoder.apply(expect, content);
-      } catch (FhirCodecException | DataFormatException | IllegalArgumentException e) {
-        // try to decode without an expected class (and let HAPI decide) as this case may occur:
-        // 1. DataFormatException happens if the Backend responds with an OperationOutcome (or any
-        // other unexpected resource) while another resource was expected
-        // 2. IllegalArgumentException is thrown if an empty response is expected, but we still get
-        // a resource (probably an OperationOutcome)
-        log.info(
-            format(
-                "Given content of length {0} could not be decoded as {1}, try without expectation",
-                content.length(), expect.getSimpleName()));
-        // although we assume an operation outcome here, let HAPI decide on the concrete type by
-        // providing no information (null) about the expected type
-        ret = this.decoder.apply(null, content);
-      }
-      return ret;
-    }
-
-    private ValidationResult validateContent(String content) {
-      ValidationResult vr;
-      if (content.isBlank()) {
-        // create an empty validation results which will always be successful
-        vr = new ValidationResult(this.fhir.getContext(), List.of());
-      } else {
-        vr = this.fhir.validate(content);
-        if (!vr.isSuccessful()) {
-          log.error("FHIR Content is invalid\n{}", content);
-        }
-      }
-
-      return vr;
+          .andValidationResult(decoded.getValidationResult());
     }
   }
 }
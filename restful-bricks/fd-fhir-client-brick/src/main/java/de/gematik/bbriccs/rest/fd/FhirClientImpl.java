@@ -23,6 +23,7 @@ package de.gematik.bbriccs.rest.fd;
 import ca.uhn.fhir.validation.ValidationResult;
 import de.gematik.bbriccs.fhir.EncodingType;
 import de.gematik.bbriccs.fhir.codec.FhirCodec;
+import de.gematik.bbriccs.fhir.codec.ValidatedResource;
 import de.gematik.bbriccs.fhir.validation.ValidatorFhir;
 import de.gematik.bbriccs.fhir.validation.ValidatorFhirFactory;
 import de.gematik.bbriccs.rest.HttpBClient;
@@ -63,7 +64,7 @@ public class FhirClientImpl implements FhirClient {
         Objects.requireNonNull(builder.acceptMime, "FdClient is missing Accept-Mime-Type");
     this.sendMime = Objects.requireNonNull(builder.sendMime, "FdClient is missing Send-Mime-Type");
 
-    this.responseCreator = new FhirBResponseCreator(this.fhir, this::decode);
+    this.responseCreator = new FhirBResponseCreator(this::decodeAndValidate);
     this.headerProviders = builder.headerProviders;
 
     this.encodingType = this.sendMime.toFhirEncoding();
@@ -87,6 +88,12 @@ public class FhirClientImpl implements FhirClient {
     return ret;
   }
 
+  private ValidatedResource decodeAndValidate(Class<? extends Resource> type, String content) {
+    val ret = this.fhir.decodeAndValidate(type, content, decodingType);
+    this.fhirObserver.serveDecoderObservers(type, content, ret.getResource());
+    return ret;
+  }
+
   public boolean isValid(String content) {
     return this.validate(content).isSuccessful();
   }
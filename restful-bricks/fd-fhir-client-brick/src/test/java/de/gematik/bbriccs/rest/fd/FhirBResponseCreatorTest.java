@@ -60,8 +60,7 @@ class FhirBResponseCreatorTest {
   @BeforeAll
   static void setUp() {
     fhir = FhirCodec.forR4().andNonProfiledValidator();
-    responseCreator =
-        new FhirBResponseCreator(fhir, (expect, content) -> fhir.decode(expect, content));
+    responseCreator = new FhirBResponseCreator(fhir::decodeAndValidate);
   }
 
   private String encodeTestRessource(Resource resource, EncodingType type) {
@@ -93,6 +92,25 @@ class FhirBResponseCreatorTest {
             Bundle.class));
   }
 
+  @Test
+  @SuppressWarnings("removal")
+  void shouldDecodeWithDeprecatedConstructor() {
+    val legacyCreator = new FhirBResponseCreator(fhir, fhir::decode);
+    val testOperationOutcome = encodeTestRessource(createOperationOutcome(), EncodingType.JSON);
+
+    val httpResponse =
+        HttpBResponse.status(404).headers(HEADERS_JSON).withPayload(testOperationOutcome);
+    val response =
+        legacyCreator
+            .expecting(Bundle.class)
+            .usedAccessToken(testToken)
+            .received(httpResponse)
+            .withoutDuration();
+    assertInstanceOf(OperationOutcome.class, response.getAsBaseResource());
+    assertFalse(response.isOfExpectedType());
+    assertNotNull(response.getValidationResult());
+  }
+
   @Test
   void unexpectedOperationOutcomeResponse() {
     val testOperationOutcome = encodeTestRessource(createOperationOutcome(), EncodingType.JSON);
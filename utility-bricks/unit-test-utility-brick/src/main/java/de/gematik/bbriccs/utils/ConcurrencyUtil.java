@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import lombok.val;
+
+/**
+ * Runs the same call many times on a fixed number of threads to provoke races on shared state. All
+ * calls are released at once and the results are returned in call order, so a test can compare them
+ * against a sequentially computed expectation.
+ */
+public class ConcurrencyUtil {
+
+  private ConcurrencyUtil() {
+    throw new IllegalAccessError("utility class");
+  }
+
+  /**
+   * @param threads number of threads running the calls
+   * @param calls number of calls in total
+   * @param call the call to run, receives the index of the call
+   * @return the results of all calls ordered by their index
+   * @param <T> type of the result of a single call
+   */
+  public static <T> List<T> runConcurrently(int threads, int calls, IntFunction<T> call) {
+    val executor = Executors.newFixedThreadPool(threads);
+    val startSignal = new CountDownLatch(1);
+    try {
+      val futures =
+          IntStream.range(0, calls)
+              .mapToObj(
+                  i ->
+                      executor.submit(
+                          () -> {
+                            startSignal.await();
+                            return call.apply(i);
+                          }))
+              .toList();
+      startSignal.countDown();
+
+      val results = new ArrayList<T>(calls);
+      for (val future : futures) {
+        results.add(getResult(future));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <T> T getResult(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for concurrent call", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      } else if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.bbriccs.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyUtilTest {
+
+  @Test
+  void shouldNotInstantiate() {
+    assertTrue(PrivateConstructorsUtil.isUtilityConstructor(ConcurrencyUtil.class));
+  }
+
+  @Test
+  void shouldReturnResultsInCallOrder() {
+    val results = ConcurrencyUtil.runConcurrently(4, 100, i -> i * 2);
+    assertEquals(IntStream.range(0, 100).map(i -> i * 2).boxed().toList(), results);
+  }
+
+  @Test
+  void shouldRunOnMultipleThreads() {
+    val threadNames = ConcurrentHashMap.<String>newKeySet();
+    ConcurrencyUtil.runConcurrently(
+        4,
+        64,
+        i -> {
+          threadNames.add(Thread.currentThread().getName());
+          return i;
+        });
+    assertTrue(threadNames.size() > 1);
+    assertFalse(threadNames.contains(Thread.currentThread().getName()));
+  }
+
+  @Test
+  void shouldRethrowRuntimeExceptions() {
+    assertThrows(
+        UnsupportedOperationException.class,
+        () ->
+            ConcurrencyUtil.runConcurrently(
+                2,
+                4,
+                i -> {
+                  if (i == 3) {
+                    throw new UnsupportedOperationException();
+                  }
+                  return i;
+                }));
+  }
+
+  @Test
+  void shouldHandleNoCalls() {
+    assertEquals(List.of(), ConcurrencyUtil.runConcurrently(2, 0, i -> Set.of(i)));
+  }
+}